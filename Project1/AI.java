@@ -9,5 +9,60 @@
  */
 public abstract class AI {
 	public abstract int getPlayerCode();
-	public abstract Location getPlayLocation(int[][] board, Location lastPlay);
+	public abstract Location getPlayLocation(Position board, Location lastPlay);
+
+	/**
+	 * Asks a call to getPlayLocation that is in progress on another thread
+	 * 	to return the best move it has found so far. It has no effect on
+	 * 	later calls, so a stop that comes too late is simply lost. AIs that
+	 * 	cannot stop early ignore this.
+	 */
+	public void stop() {
+	}
+
+	/**
+	 * Marks the start of a search that the calling thread is about to make
+	 * 	with getPlayLocation, so that a stop from another thread in between
+	 * 	still ends it. Callers that may stop a search call this first;
+	 * 	others need not.
+	 */
+	public void beginSearch() {
+	}
+
+	/**
+	 * Tells the AI that the game is over, so that it stops anything it does
+	 * 	between moves, such as thinking on the opponent's time. It is called
+	 * 	on the thread that calls getPlayLocation, between searches.
+	 */
+	public void endGame() {
+	}
+
+	/**
+	 * Gets the number of random games played out while choosing the last
+	 * 	move, for AIs that search that way.
+	 *
+	 * @return The playout count, or 0 if the AI does not play games out
+	 */
+	public long getLastPlayouts() {
+		return 0;
+	}
+
+	/**
+	 * Gets how many times the search tried the last move chosen, for AIs
+	 * 	that search that way.
+	 *
+	 * @return The visit count, or 0 if the move was not searched
+	 */
+	public int getLastVisits() {
+		return 0;
+	}
+
+	/**
+	 * Gets the share of the search's games the last move chosen won.
+	 *
+	 * @return The win rate from 0 to 1, or -1 if it is not known
+	 */
+	public double getLastWinRate() {
+		return -1;
+	}
 }
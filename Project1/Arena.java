@@ -0,0 +1,400 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Plays many games between two AIs without a window and reports how they
+ * 	compare.
+ *
+ * Games are played in pairs from the same opening, with the AIs swapping
+ * 	colours, so neither gets more than its share of the first move. Each
+ * 	opening is a few random stones from a fixed seed, so runs can be
+ * 	repeated. Games run in parallel, each with fresh AIs.
+ *
+ * Usage: java Arena [-games N] [-size N] [-parallel N] [-openings N]
+ * 	[-seed N] [-record FILE] playerA playerB
+ *
+ * A player is "mcai" followed by any of ":time=MS", ":threads=N",
+ * 	":shared", ":playouts=N", ":nodes=N", ":offheap" and ":book=FILE", or
+ * 	the name of an AI class with a constructor that takes the colour to
+ * 	play.
+ *
+ * With -record, every game is appended to a game record file, with the
+ * 	visits and win rate behind each of the AIs' moves.
+ *
+ * @author agent
+ */
+public class Arena {
+	private static final double Z95=1.96;
+
+	private final IntFunction<AI> playerA;
+	private final IntFunction<AI> playerB;
+	private final int size;
+	private final int openings;
+	private final long seed;
+
+	// Where games are recorded, if anywhere, and the names they go under.
+	private GameRecordWriter recorder;
+	private String nameA;
+	private String nameB;
+
+	// Totals over every game, guarded by this.
+	private int gamesA;
+	private int gamesB;
+	private long playoutsA;
+	private long playoutsB;
+	private long[] latencyA=new long[1024];
+	private long[] latencyB=new long[1024];
+	private int movesA;
+	private int movesB;
+
+	/**
+	 * Creates an arena.
+	 *
+	 * @param playerA Creates the first AI for a given colour
+	 * @param playerB Creates the second AI for a given colour
+	 * @param size The length of a side of the board
+	 * @param openings The number of random stones each game starts with
+	 * @param seed The seed the openings are drawn from
+	 */
+	public Arena(IntFunction<AI> playerA, IntFunction<AI> playerB, int size, int openings, long seed) {
+		this.playerA=playerA;
+		this.playerB=playerB;
+		this.size=size;
+		this.openings=openings;
+		this.seed=seed;
+	}
+
+	/**
+	 * Records every game played from now on.
+	 *
+	 * @param recorder Where to write the games
+	 * @param nameA The first AI's name in the records
+	 * @param nameB The second AI's name in the records
+	 */
+	public void setRecorder(GameRecordWriter recorder, String nameA, String nameB) {
+		this.recorder=recorder;
+		this.nameA=nameA;
+		this.nameB=nameB;
+	}
+
+	/**
+	 * Plays a number of games, rounded up to a whole number of pairs.
+	 *
+	 * @param games The number of games
+	 * @param parallel The number of games to play at once
+	 */
+	public void play(int games, int parallel) throws InterruptedException {
+		ExecutorService pool=Executors.newFixedThreadPool(parallel);
+		ArrayList<Future<?>> results=new ArrayList<Future<?>>();
+
+		try {
+			for (int i=0; i<(games+1)/2*2; i++) {
+				final int game=i;
+				results.add(pool.submit(() -> playGame(game)));
+			}
+
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Game failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Plays one game. Even games give the first AI White, odd games give it
+	 * 	Black, and both games of a pair start from the same opening.
+	 */
+	private void playGame(int game) {
+		boolean aIsWhite=game%2==0;
+		AI white=aIsWhite ? playerA.apply(Constants.WHITE) : playerB.apply(Constants.WHITE);
+		AI black=aIsWhite ? playerB.apply(Constants.BLACK) : playerA.apply(Constants.BLACK);
+
+		Position board=new Position(size);
+		Connectivity links=new Connectivity(size);
+		SplittableRandom random=new SplittableRandom(seed+game/2);
+		Location last=new Location(-1, -1);
+		int turn=Constants.WHITE;
+
+		// Every cell played, with the search statistics behind it.
+		int[] cells=new int[board.getCellCount()];
+		int[] visits=new int[cells.length];
+		double[] winRates=new double[cells.length];
+		int played=0;
+
+		for (int i=0; i<openings && links.getWinner()==Constants.EMPTY; i++) {
+			int cell=board.getEmpty(random.nextInt(board.getEmptyCount()));
+			cells[played]=cell;
+			winRates[played++]=-1;
+			board.play(cell, turn);
+			links.place(cell, turn);
+			last=new Location(board.x(cell), board.y(cell));
+			turn=turn==Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+		}
+
+		ArrayList<long[]> moves=new ArrayList<long[]>();
+		int winner=links.getWinner();
+
+		while (winner==Constants.EMPTY) {
+			AI ai=turn==Constants.WHITE ? white : black;
+			long start=System.nanoTime();
+			Location move=ai.getPlayLocation(Board.BoardCopy(board), last);
+			long time=System.nanoTime()-start;
+			moves.add(new long[] {turn, time, ai.getLastPlayouts()});
+
+			int other=turn==Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+			if (move==null || move.x<0 || move.x>=size || move.y<0 || move.y>=size
+				|| !board.isEmpty(board.cell(move.x, move.y))) {
+				// An illegal move forfeits the game.
+				winner=other;
+				break;
+			}
+
+			int cell=board.cell(move.x, move.y);
+			cells[played]=cell;
+			visits[played]=ai.getLastVisits();
+			winRates[played++]=ai.getLastWinRate();
+			board.play(cell, turn);
+			links.place(cell, turn);
+			last=move;
+			winner=links.getWinner();
+			turn=other;
+		}
+
+		record(aIsWhite==(winner==Constants.WHITE), aIsWhite, moves);
+
+		if (recorder!=null) {
+			try {
+				recorder.write(size, aIsWhite ? nameA : nameB, aIsWhite ? nameB : nameA,
+					winner, cells, visits, winRates, played);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private synchronized void record(boolean aWon, boolean aIsWhite, ArrayList<long[]> moves) {
+		if (aWon) {
+			gamesA++;
+		} else {
+			gamesB++;
+		}
+
+		int colourA=aIsWhite ? Constants.WHITE : Constants.BLACK;
+		for (long[] move : moves) {
+			if (move[0]==colourA) {
+				if (movesA==latencyA.length) {
+					latencyA=Arrays.copyOf(latencyA, movesA*2);
+				}
+				latencyA[movesA++]=move[1];
+				playoutsA+=move[2];
+			} else {
+				if (movesB==latencyB.length) {
+					latencyB=Arrays.copyOf(latencyB, movesB*2);
+				}
+				latencyB[movesB++]=move[1];
+				playoutsB+=move[2];
+			}
+		}
+	}
+
+	/**
+	 * Prints the results so far: win rates with 95% confidence intervals,
+	 * 	the Elo difference they imply, and playouts and latency per move.
+	 */
+	public synchronized void report() {
+		int games=gamesA+gamesB;
+		double p=(double)gamesA/games;
+		double margin=Z95*Math.sqrt(p*(1-p)/games);
+
+		System.out.println("Games: "+games);
+		System.out.printf("A wins %d (%.1f%% +/- %.1f%%), B wins %d (%.1f%% +/- %.1f%%)%n",
+			gamesA, 100*p, 100*margin, gamesB, 100*(1-p), 100*margin);
+		System.out.printf("Elo difference (A - B): %s [%s, %s]%n",
+			elo(p), elo(p-margin), elo(p+margin));
+
+		reportMoves("A", movesA, latencyA, playoutsA);
+		reportMoves("B", movesB, latencyB, playoutsB);
+	}
+
+	private void reportMoves(String name, int moves, long[] latency, long playouts) {
+		if (moves==0) {
+			System.out.println(name+": no moves");
+			return;
+		}
+
+		long[] sorted=Arrays.copyOf(latency, moves);
+		Arrays.sort(sorted);
+
+		System.out.printf("%s: %d moves, %.0f playouts/move, latency ms p50 %.1f p90 %.1f p99 %.1f max %.1f%n",
+			name, moves, (double)playouts/moves,
+			percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+			sorted[moves-1]/1e6);
+	}
+
+	private static double percentile(long[] sorted, double q) {
+		return sorted[(int)Math.min(sorted.length-1, Math.floor(q*sorted.length))]/1e6;
+	}
+
+	/**
+	 * Converts a score to an Elo difference.
+	 */
+	private static String elo(double p) {
+		if (p<=0) {
+			return "-inf";
+		} else if (p>=1) {
+			return "+inf";
+		}
+
+		return String.format("%+.0f", -400*Math.log10(1/p-1));
+	}
+
+	/**
+	 * Turns a player description from the command line into a way of
+	 * 	creating that player.
+	 *
+	 * @param spec The description
+	 *
+	 * @return A function from the colour to play to a new AI
+	 */
+	public static IntFunction<AI> parsePlayer(String spec) {
+		String[] parts=spec.split(":");
+
+		if (parts[0].equalsIgnoreCase("mcai")) {
+			int time=-1;
+			int threads=1;
+			int playouts=1;
+			int nodes=-1;
+			boolean shared=false;
+			boolean offHeap=false;
+			OpeningBook book=null;
+
+			for (int i=1; i<parts.length; i++) {
+				String[] option=parts[i].split("=", 2);
+				if (option[0].equals("shared")) {
+					shared=true;
+				} else if (option[0].equals("offheap")) {
+					offHeap=true;
+				} else if (option.length==2 && option[0].equals("time")) {
+					time=Integer.parseInt(option[1]);
+				} else if (option.length==2 && option[0].equals("threads")) {
+					threads=Integer.parseInt(option[1]);
+				} else if (option.length==2 && option[0].equals("playouts")) {
+					playouts=Integer.parseInt(option[1]);
+				} else if (option.length==2 && option[0].equals("nodes")) {
+					nodes=Integer.parseInt(option[1]);
+				} else if (option.length==2 && option[0].equals("book")) {
+					try {
+						book=OpeningBook.open(Paths.get(option[1]));
+					} catch (IOException e) {
+						throw new IllegalArgumentException("cannot read opening book "+option[1], e);
+					}
+				} else {
+					throw new IllegalArgumentException("unknown MCAI option: "+parts[i]);
+				}
+			}
+
+			final int t=time;
+			final int n=threads;
+			final int k=playouts;
+			final int m=nodes;
+			final boolean s=shared;
+			final boolean h=offHeap;
+			final OpeningBook b=book;
+			return colour -> {
+				MCAI ai=new MCAI(colour, n, s);
+				if (t>0) {
+					ai.setTimeLimit(t);
+				}
+				ai.setPlayouts(k);
+				ai.setOffHeap(h);
+				if (m>0) {
+					ai.setNodeBudget(m);
+				}
+				ai.setOpeningBook(b);
+				return ai;
+			};
+		}
+
+		return colour -> {
+			try {
+				return (AI)Class.forName(spec).getConstructor(int.class).newInstance(colour);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalArgumentException("cannot create player "+spec, e);
+			}
+		};
+	}
+
+	/**
+	 * Runs the arena from the command line.
+	 *
+	 * @param args The options and the two players
+	 */
+	public static void main(String[] args) throws InterruptedException, IOException {
+		int games=100;
+		int size=7;
+		int parallel=Runtime.getRuntime().availableProcessors();
+		int openings=2;
+		long seed=1;
+		String record=null;
+		ArrayList<String> players=new ArrayList<String>();
+
+		for (int i=0; i<args.length; i++) {
+			if (args[i].equals("-games")) {
+				games=Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-size")) {
+				size=Position.checkSize(Integer.parseInt(args[++i]));
+			} else if (args[i].equals("-parallel")) {
+				parallel=Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-openings")) {
+				openings=Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-seed")) {
+				seed=Long.parseLong(args[++i]);
+			} else if (args[i].equals("-record")) {
+				record=args[++i];
+			} else {
+				players.add(args[i]);
+			}
+		}
+
+		if (players.size()!=2) {
+			System.err.println("Usage: java Arena [-games N] [-size N] [-parallel N] [-openings N] [-seed N] [-record FILE] playerA playerB");
+			System.exit(2);
+		}
+
+		Arena arena=new Arena(parsePlayer(players.get(0)), parsePlayer(players.get(1)), size, openings, seed);
+		GameRecordWriter recorder=null;
+		if (record!=null) {
+			recorder=GameRecordWriter.open(Paths.get(record));
+			arena.setRecorder(recorder, players.get(0), players.get(1));
+		}
+
+		long start=System.nanoTime();
+		try {
+			arena.play(games, parallel);
+		} finally {
+			if (recorder!=null) {
+				recorder.close();
+			}
+		}
+
+		System.out.println("A: "+players.get(0)+", B: "+players.get(1)+", size "+size);
+		arena.report();
+		System.out.printf("Took %.1fs%n", (System.nanoTime()-start)/1e9);
+	}
+}
@@ -0,0 +1,145 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs an AI on its own search thread, so that asking for a move never
+ * 	blocks the caller. Moves come back as futures, and a search can be
+ * 	told to move now or be cancelled outright.
+ *
+ * Only one search runs at a time. Asking for a move while another search
+ * 	is running queues the new search behind it.
+ *
+ * @author agent
+ */
+public class AsyncAI {
+	private final AI ai;
+	private final ExecutorService executor;
+	private CompletableFuture<Location> current;
+	// The request whose search is running, if any. Stopping the AI only
+	// 	makes sense while the latest request is the one running.
+	private CompletableFuture<Location> running;
+	// A request told to move now while it was still queued, which is
+	// 	stopped as soon as its search begins.
+	private CompletableFuture<Location> hurried;
+
+	/**
+	 * Wraps an AI.
+	 *
+	 * @param ai The AI to run
+	 */
+	public AsyncAI(AI ai) {
+		this.ai=ai;
+		executor=Executors.newSingleThreadExecutor(r -> {
+			Thread t=new Thread(r, "AI search");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Gets the colour the AI plays.
+	 *
+	 * @return Constants.WHITE or Constants.BLACK
+	 */
+	public int getPlayerCode() {
+		return ai.getPlayerCode();
+	}
+
+	/**
+	 * Starts a search for a move. The position is copied, so the caller
+	 * 	may change its board while the search runs.
+	 *
+	 * @param board The position to move in
+	 * @param lastPlay The opponent's last move, or (-1, -1) if there was
+	 * 	none
+	 *
+	 * @return A future that completes with the move, on the search thread
+	 */
+	public synchronized CompletableFuture<Location> requestMove(Position board, Location lastPlay) {
+		Position copy=Board.BoardCopy(board);
+		CompletableFuture<Location> request=new CompletableFuture<Location>();
+		current=request;
+
+		executor.execute(() -> {
+			// A request cancelled while queued is never searched. The search
+			// 	is numbered while holding the lock, so a stop can never fall
+			// 	between it being marked running and it starting.
+			synchronized (this) {
+				if (request.isDone()) {
+					return;
+				}
+				running=request;
+				ai.beginSearch();
+				if (hurried==request) {
+					ai.stop();
+				}
+			}
+
+			try {
+				request.complete(ai.getPlayLocation(copy, lastPlay));
+			} catch (Throwable t) {
+				request.completeExceptionally(t);
+			} finally {
+				synchronized (this) {
+					running=null;
+				}
+			}
+		});
+
+		return request;
+	}
+
+	/**
+	 * Asks the latest search to finish now with the best move it has, or
+	 * 	to stop as soon as it starts if it is still queued.
+	 */
+	public synchronized void moveNow() {
+		if (current==null || current.isDone()) {
+			return;
+		}
+		if (running==current) {
+			ai.stop();
+		} else {
+			hurried=current;
+		}
+	}
+
+	/**
+	 * Abandons the latest search. Its future completes with a
+	 * 	CancellationException. A search that is still queued never starts,
+	 * 	and one that is running frees the search thread as soon as the AI
+	 * 	notices it has been stopped.
+	 */
+	public synchronized void cancel() {
+		if (current!=null) {
+			current.cancel(false);
+			if (running==current) {
+				ai.stop();
+			}
+		}
+	}
+
+	/**
+	 * Abandons the latest search and tells the AI that the game is over,
+	 * 	once the search thread is free, so that it stops thinking on the
+	 * 	opponent's time.
+	 */
+	public synchronized void endGame() {
+		cancel();
+		executor.execute(ai::endGame);
+	}
+
+	/**
+	 * Checks if a search is in progress.
+	 *
+	 * @return true if the latest search has not finished
+	 */
+	public synchronized boolean isThinking() {
+		return current!=null && !current.isDone();
+	}
+}
@@ -16,16 +16,8 @@ public class Board {
 	 *
 	 * @return The copied board
 	 */
-	public static int[][] BoardCopy(int[][] board) {
-		int[][] nBoard=new int[board.length][board.length];
-
-		for (int y=0; y<board.length; y++) {
-			for (int x=0; x<board[y].length; x++) {
-				nBoard[y][x]=board[y][x];
-			}
-		}
-
-		return nBoard;
+	public static Position BoardCopy(Position board) {
+		return new Position(board);
 	}
 
 	/**
@@ -35,15 +27,7 @@ public class Board {
 	 *
 	 * @return The existance of an empty space
 	 */
-	public static boolean hasEmpty(int[][] board) {
-		for (int y=0; y<board.length; y++) {
-			for (int x=0; x<board[y].length; x++) {
-				if (board[y][x]==0) {
-					return true;
-				}
-			}
-		}
-
-		return false;
+	public static boolean hasEmpty(Position board) {
+		return board.hasEmpty();
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,198 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds an opening book offline by searching every position up to a
+ * 	given number of stones, White moving first. Positions that are the
+ * 	same after turning the board round are searched once, and positions
+ * 	someone has already won are left out.
+ *
+ * Usage: java BookBuilder [-size N] [-depth N] [-time MS] [-parallel N]
+ * 	output
+ *
+ * @author agent
+ */
+public class BookBuilder {
+	private final int size;
+	private final int time;
+
+	// The positions to search, with the player to move in each.
+	private final ArrayList<Position> positions=new ArrayList<Position>();
+	private final ArrayList<Integer> players=new ArrayList<Integer>();
+
+	private long[] keys;
+	private int[] moves;
+	private int[] games;
+
+	/**
+	 * Creates a builder and lists the positions it will search.
+	 *
+	 * @param size The length of a side of the board
+	 * @param depth The most stones a position in the book has
+	 * @param time How long to search each position for, in milliseconds
+	 */
+	public BookBuilder(int size, int depth, int time) {
+		this.size=size;
+		this.time=time;
+
+		HashSet<Long> seen=new HashSet<Long>();
+		ArrayList<Position> level=new ArrayList<Position>();
+		level.add(new Position(size));
+		seen.add(level.get(0).getKey(Constants.WHITE));
+
+		for (int d=0; d<=depth; d++) {
+			int player=d%2==0 ? Constants.WHITE : Constants.BLACK;
+			int other=player==Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+			ArrayList<Position> next=new ArrayList<Position>();
+
+			for (Position board : level) {
+				positions.add(board);
+				players.add(player);
+				if (d==depth) {
+					continue;
+				}
+
+				for (int cell=0; cell<board.getCellCount(); cell++) {
+					if (!board.isEmpty(cell)) {
+						continue;
+					}
+
+					Position child=new Position(board);
+					child.play(cell, player);
+					Connectivity links=new Connectivity(size);
+					links.reset(child);
+					if (links.getWinner()==Constants.EMPTY && seen.add(child.getKey(other))) {
+						next.add(child);
+					}
+				}
+			}
+
+			level=next;
+		}
+	}
+
+	/**
+	 * Searches every position. The positions are listed a level at a time,
+	 * 	so each worker thread keeps one AI and only replaces it when the
+	 * 	player to move changes, since every AI holds a large tree.
+	 *
+	 * @param parallel The number of positions to search at once
+	 */
+	public void build(int parallel) throws InterruptedException {
+		int count=positions.size();
+		keys=new long[count];
+		moves=new int[count];
+		games=new int[count];
+
+		ExecutorService pool=Executors.newFixedThreadPool(parallel);
+		ArrayList<Future<?>> results=new ArrayList<Future<?>>();
+		AtomicInteger next=new AtomicInteger();
+		AtomicInteger done=new AtomicInteger();
+
+		try {
+			for (int t=0; t<parallel; t++) {
+				results.add(pool.submit(() -> {
+					MCAI ai=null;
+
+					for (int i=next.getAndIncrement(); i<count; i=next.getAndIncrement()) {
+						if (ai==null || ai.getPlayerCode()!=players.get(i)) {
+							ai=new MCAI(players.get(i));
+							ai.setTimeLimit(time);
+						}
+						search(i, ai);
+						int n=done.incrementAndGet();
+						if (n%100==0 || n==count) {
+							System.out.println("Searched "+n+" of "+count);
+						}
+					}
+				}));
+			}
+
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Search failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private void search(int i, MCAI ai) {
+		Position board=positions.get(i);
+		int player=players.get(i);
+
+		// The AI plays the centre without searching when there is no last
+		// 	move, so give it one.
+		Location last=new Location(size/2, size/2);
+		for (int cell=0; cell<board.getCellCount(); cell++) {
+			if (!board.isEmpty(cell)) {
+				last=new Location(board.x(cell), board.y(cell));
+			}
+		}
+
+		Location move=ai.getPlayLocation(new Position(board), last);
+		keys[i]=board.getKey(player);
+		moves[i]=board.toCanonical(board.cell(move.x, move.y));
+		games[i]=(int)Math.min(Integer.MAX_VALUE, ai.getLastPlayouts());
+	}
+
+	/**
+	 * Writes the book.
+	 *
+	 * @param file Where to write it
+	 */
+	public void write(Path file) throws IOException {
+		OpeningBook.write(file, size, keys, moves, games, positions.size());
+	}
+
+	/**
+	 * Runs the builder from the command line.
+	 *
+	 * @param args The options and the output file
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int size=7;
+		int depth=2;
+		int time=1000;
+		int parallel=Runtime.getRuntime().availableProcessors();
+		String output=null;
+
+		for (int i=0; i<args.length; i++) {
+			if (args[i].equals("-size")) {
+				size=Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-depth")) {
+				depth=Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-time")) {
+				time=Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-parallel")) {
+				parallel=Integer.parseInt(args[++i]);
+			} else {
+				output=args[i];
+			}
+		}
+
+		if (output==null) {
+			System.err.println("Usage: java BookBuilder [-size N] [-depth N] [-time MS] [-parallel N] output");
+			System.exit(2);
+		}
+
+		BookBuilder builder=new BookBuilder(size, depth, time);
+		long start=System.nanoTime();
+		builder.build(parallel);
+		builder.write(Paths.get(output));
+		System.out.printf("Wrote %d positions to %s in %.1fs%n", builder.positions.size(), output, (System.nanoTime()-start)/1e9);
+	}
+}
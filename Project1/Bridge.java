@@ -5,7 +5,9 @@
 import java.util.ArrayList;
 
 /**
- * A representation of a bridge on a Hex board.
+ * A representation of a bridge on a Hex board. l1 and l2 are its ends, mids
+ * 	holds its two carrier cells and dir is the HexTopology direction of the
+ * 	bridge from l1.
  *
  * @author David Pearson
  */
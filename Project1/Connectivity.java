@@ -0,0 +1,185 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+/**
+ * Tracks which cells are connected to each other and to the edges of the
+ * 	board with a union-find structure, so that checking whether a player
+ * 	has won costs next to nothing after each stone is placed.
+ *
+ * White connects the top and bottom edges, Black connects the left and
+ * 	right edges. Each edge is a virtual node after the last cell.
+ *
+ * @author agent
+ */
+public class Connectivity {
+	private final int size;
+	private final int[] neighbours;
+	private final int cells;
+	private final int top;
+	private final int bottom;
+	private final int left;
+	private final int right;
+
+	private final int[] parent;
+	private final int[] rank;
+	private final int[] colour;
+
+	/**
+	 * Creates a tracker for an empty board of the given size.
+	 *
+	 * @param size The length of a side of the board
+	 */
+	public Connectivity(int size) {
+		this.size=size;
+		neighbours=HexTopology.forSize(size).getNeighbours();
+		cells=size*size;
+		top=cells;
+		bottom=cells+1;
+		left=cells+2;
+		right=cells+3;
+
+		parent=new int[cells+4];
+		rank=new int[cells+4];
+		colour=new int[cells];
+		clear();
+	}
+
+	/**
+	 * Forgets every stone, leaving each cell and edge in its own set.
+	 */
+	public void clear() {
+		for (int i=0; i<parent.length; i++) {
+			parent[i]=i;
+			rank[i]=0;
+		}
+
+		for (int i=0; i<cells; i++) {
+			colour[i]=Constants.EMPTY;
+		}
+	}
+
+	/**
+	 * Rebuilds the tracker from the stones on a position.
+	 *
+	 * @param board The position to track
+	 */
+	public void reset(Position board) {
+		clear();
+
+		for (int cell=0; cell<cells; cell++) {
+			int c=board.get(cell);
+			if (c!=Constants.EMPTY) {
+				place(cell, c);
+			}
+		}
+	}
+
+	/**
+	 * Overwrites this tracker with the state of another of the same size
+	 * 	without allocating.
+	 *
+	 * @param other The tracker to copy
+	 */
+	public void copyFrom(Connectivity other) {
+		System.arraycopy(other.parent, 0, parent, 0, parent.length);
+		System.arraycopy(other.rank, 0, rank, 0, rank.length);
+		System.arraycopy(other.colour, 0, colour, 0, colour.length);
+	}
+
+	/**
+	 * Records a stone and joins it to its neighbours of the same colour and
+	 * 	to any of its own edges that it touches.
+	 *
+	 * @param cell The cell index of the new stone
+	 * @param c The colour of the stone
+	 */
+	public void place(int cell, int c) {
+		colour[cell]=c;
+
+		int x=cell%size;
+		int y=cell/size;
+
+		for (int i=cell*HexTopology.DIRECTIONS; i<(cell+1)*HexTopology.DIRECTIONS; i++) {
+			int n=neighbours[i];
+
+			if (n>=0 && colour[n]==c) {
+				union(cell, n);
+			}
+		}
+
+		if (c==Constants.WHITE) {
+			if (y==0) {
+				union(cell, top);
+			}
+			if (y==size-1) {
+				union(cell, bottom);
+			}
+		} else {
+			if (x==0) {
+				union(cell, left);
+			}
+			if (x==size-1) {
+				union(cell, right);
+			}
+		}
+	}
+
+	/**
+	 * Checks if a player has joined their two edges.
+	 *
+	 * @param c The colour to check
+	 *
+	 * @return true if that colour has won
+	 */
+	public boolean hasConnected(int c) {
+		if (c==Constants.WHITE) {
+			return find(top)==find(bottom);
+		}
+
+		return find(left)==find(right);
+	}
+
+	/**
+	 * Gets the winner of the game, if there is one yet.
+	 *
+	 * @return The winning colour, or Constants.EMPTY
+	 */
+	public int getWinner() {
+		if (hasConnected(Constants.WHITE)) {
+			return Constants.WHITE;
+		} else if (hasConnected(Constants.BLACK)) {
+			return Constants.BLACK;
+		}
+
+		return Constants.EMPTY;
+	}
+
+	private int find(int i) {
+		while (parent[i]!=i) {
+			// Path halving keeps the trees flat without recursion.
+			parent[i]=parent[parent[i]];
+			i=parent[i];
+		}
+
+		return i;
+	}
+
+	private void union(int a, int b) {
+		int ra=find(a);
+		int rb=find(b);
+
+		if (ra==rb) {
+			return;
+		}
+
+		if (rank[ra]<rank[rb]) {
+			parent[ra]=rb;
+		} else if (rank[ra]>rank[rb]) {
+			parent[rb]=ra;
+		} else {
+			parent[rb]=ra;
+			rank[ra]++;
+		}
+	}
+}
@@ -0,0 +1,317 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file written by GameRecordWriter straight from memory-mapped
+ * 	storage. The reader is a cursor over the games: next() moves on to the
+ * 	next game, and the getters read that game's fields in place, so going
+ * 	through millions of games creates no objects unless the players' names
+ * 	are asked for.
+ *
+ * A single mapping holds at most 2GB, so files are mapped in segments of
+ * 	1GB. Values that straddle two segments are read a byte at a time,
+ * 	including varints, which pick up in the next segment where they left
+ * 	off.
+ *
+ * @author agent
+ */
+public class GameRecordReader {
+	private static final int HEADER=8;
+	private static final int SEGMENT_BITS=30;
+
+	private final MappedByteBuffer[] segments;
+	private final int segmentBits;
+	private final long length;
+
+	// Where the next game starts, and the fields of the current one.
+	private long next=HEADER;
+	private int size;
+	private int flags;
+	private int count;
+	private long white;
+	private long black;
+	private long moves;
+	private long stats;
+	private boolean wide;
+
+	// Where the last varint read ended.
+	private long end;
+
+	private GameRecordReader(MappedByteBuffer[] segments, int segmentBits, long length) {
+		this.segments=segments;
+		this.segmentBits=segmentBits;
+		this.length=length;
+	}
+
+	/**
+	 * Maps a game record file into memory, positioned before its first game.
+	 *
+	 * @param file The file
+	 *
+	 * @return The reader
+	 *
+	 * @throws IOException If the file cannot be read or is not a game
+	 * 	record file
+	 */
+	public static GameRecordReader open(Path file) throws IOException {
+		return open(file, SEGMENT_BITS);
+	}
+
+	/**
+	 * Maps a game record file into memory in segments of a given size.
+	 *
+	 * @param file The file
+	 * @param segmentBits The size of a segment, as a power of two
+	 *
+	 * @return The reader
+	 *
+	 * @throws IOException If the file cannot be read or is not a game
+	 * 	record file
+	 */
+	static GameRecordReader open(Path file, int segmentBits) throws IOException {
+		MappedByteBuffer[] segments;
+		long length;
+		try (FileChannel channel=FileChannel.open(file, StandardOpenOption.READ)) {
+			length=channel.size();
+			long perSegment=1L<<segmentBits;
+			segments=new MappedByteBuffer[(int)((length+perSegment-1)>>>segmentBits)];
+			for (int i=0; i<segments.length; i++) {
+				long at=(long)i<<segmentBits;
+				segments[i]=channel.map(FileChannel.MapMode.READ_ONLY, at, Math.min(perSegment, length-at));
+			}
+		}
+
+		GameRecordReader reader=new GameRecordReader(segments, segmentBits, length);
+		if (length<HEADER || reader.getInt(0)!=GameRecordWriter.MAGIC
+			|| reader.getInt(4)!=GameRecordWriter.VERSION) {
+			throw new IOException(file+" is not a version "+GameRecordWriter.VERSION+" game record file");
+		}
+
+		return reader;
+	}
+
+	/**
+	 * Moves on to the next game. A game cut short at the end of the file,
+	 * 	as a writer that did not finish can leave, counts as the end.
+	 *
+	 * @return true if there is another game
+	 */
+	public boolean next() {
+		if (next>=length) {
+			return false;
+		}
+
+		int bytes=readVarint(next);
+		long start=end;
+		if (bytes<0 || start+bytes>length) {
+			next=length;
+			return false;
+		}
+		next=start+bytes;
+
+		size=getByte(start);
+		flags=getByte(start+1);
+		count=readVarint(start+2);
+		white=end;
+		black=skipName(white);
+		moves=skipName(black);
+		wide=size*size>256;
+		stats=moves+count*(wide ? 2 : 1);
+
+		return true;
+	}
+
+	/**
+	 * Goes back to before the first game.
+	 */
+	public void rewind() {
+		next=HEADER;
+	}
+
+	/**
+	 * Gets the board size of the current game.
+	 *
+	 * @return The length of a side of the board
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the winner of the current game.
+	 *
+	 * @return The winning colour, or Constants.EMPTY if it did not finish
+	 */
+	public int getWinner() {
+		return flags&3;
+	}
+
+	/**
+	 * Gets the number of moves in the current game.
+	 *
+	 * @return The number of moves
+	 */
+	public int getMoveCount() {
+		return count;
+	}
+
+	/**
+	 * Gets a move of the current game.
+	 *
+	 * @param i The index of the move, from 0
+	 *
+	 * @return The cell played
+	 */
+	public int getMove(int i) {
+		if (wide) {
+			return getShort(moves+2*i);
+		}
+
+		return getByte(moves+i);
+	}
+
+	/**
+	 * Checks if the current game has search statistics for its moves.
+	 *
+	 * @return true if it has
+	 */
+	public boolean hasStats() {
+		return (flags&GameRecordWriter.HAS_STATS)!=0;
+	}
+
+	/**
+	 * Gets the root visits behind a move of the current game.
+	 *
+	 * @param i The index of the move, from 0
+	 *
+	 * @return The visit count, or 0 without statistics
+	 */
+	public int getVisits(int i) {
+		return hasStats() ? getInt(stats+6*i) : 0;
+	}
+
+	/**
+	 * Gets the win rate behind a move of the current game.
+	 *
+	 * @param i The index of the move, from 0
+	 *
+	 * @return The win rate from 0 to 1, or -1 if it is not known
+	 */
+	public double getWinRate(int i) {
+		int rate=hasStats() ? getShort(stats+6*i+4) : GameRecordWriter.NO_WIN_RATE;
+
+		return rate==GameRecordWriter.NO_WIN_RATE ? -1 : rate/(double)(GameRecordWriter.NO_WIN_RATE-1);
+	}
+
+	/**
+	 * Gets the name of a player in the current game.
+	 *
+	 * @param colour Constants.WHITE or Constants.BLACK
+	 *
+	 * @return The name
+	 */
+	public String getPlayer(int colour) {
+		long at=colour==Constants.WHITE ? white : black;
+		byte[] bytes=new byte[readVarint(at)];
+		for (int i=0; i<bytes.length; i++) {
+			bytes[i]=(byte)getByte(end+i);
+		}
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private long skipName(long at) {
+		int bytes=readVarint(at);
+
+		return end+bytes;
+	}
+
+	private int getByte(long at) {
+		return segments[(int)(at>>>segmentBits)].get((int)(at&((1L<<segmentBits)-1)))&0xff;
+	}
+
+	/**
+	 * Reads a big-endian short, from one segment if it fits in one.
+	 */
+	private int getShort(long at) {
+		MappedByteBuffer segment=segments[(int)(at>>>segmentBits)];
+		int offset=(int)(at&((1L<<segmentBits)-1));
+		if (offset+2<=segment.capacity()) {
+			return segment.getShort(offset)&0xffff;
+		}
+
+		return getByte(at)<<8|getByte(at+1);
+	}
+
+	/**
+	 * Reads a big-endian int, from one segment if it fits in one.
+	 */
+	private int getInt(long at) {
+		MappedByteBuffer segment=segments[(int)(at>>>segmentBits)];
+		int offset=(int)(at&((1L<<segmentBits)-1));
+		if (offset+4<=segment.capacity()) {
+			return segment.getInt(offset);
+		}
+
+		return getShort(at)<<16|getShort(at+2);
+	}
+
+	/**
+	 * Reads a varint and notes where it ended.
+	 *
+	 * @return The value, or -1 if it runs off the end of the file
+	 */
+	private int readVarint(long at) {
+		int value=0;
+
+		for (int shift=0; at<length && shift<32; shift+=7) {
+			int b=getByte(at++);
+			value|=(b&0x7f)<<shift;
+			if ((b&0x80)==0) {
+				end=at;
+				return value;
+			}
+		}
+
+		end=at;
+		return -1;
+	}
+
+	/**
+	 * Summarises a game record file: the number of games, how often each
+	 * 	colour won and the average game length.
+	 *
+	 * @param args The file
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length!=1) {
+			System.err.println("Usage: java GameRecordReader file");
+			System.exit(2);
+		}
+
+		GameRecordReader reader=open(Paths.get(args[0]));
+		long games=0;
+		long moves=0;
+		long[] wins=new long[3];
+		long start=System.nanoTime();
+
+		while (reader.next()) {
+			games++;
+			moves+=reader.getMoveCount();
+			wins[reader.getWinner()]++;
+		}
+
+		System.out.printf("%d games, White won %d, Black won %d, %d unfinished, %.1f moves per game (read in %.1fms)%n",
+			games, wins[Constants.WHITE], wins[Constants.BLACK], wins[Constants.EMPTY],
+			games==0 ? 0.0 : (double)moves/games, (System.nanoTime()-start)/1e6);
+	}
+}
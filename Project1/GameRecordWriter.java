@@ -0,0 +1,188 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Appends games to a file of compact binary game records, to be read back
+ * 	by GameRecordReader.
+ *
+ * The file starts with the magic number and the format version, as big-endian
+ * 	ints, followed by the games one after another. Each game is:
+ *
+ * - its length in bytes after this field, as a varint
+ * - the board size, as a byte
+ * - a flags byte: the winner (Constants.EMPTY if unfinished) in the low
+ * 	two bits, and HAS_STATS if search statistics follow the moves
+ * - the number of moves, as a varint
+ * - White's and Black's names, each a varint length then UTF-8 bytes
+ * - the moves, one byte each if every cell fits in a byte and two bytes
+ * 	otherwise
+ * - with statistics, for each move its visits as an int and its win rate
+ * 	scaled to an unsigned short from 0 to 65534, or NO_WIN_RATE if not
+ * 	known
+ *
+ * Varints are unsigned, seven bits to a byte, low bits first, with the top
+ * 	bit set on every byte but the last. Moves and statistics have a fixed
+ * 	width so a reader can go straight to any one of them.
+ *
+ * A game is built up in memory and written in one go, so games from
+ * 	several threads never interleave.
+ *
+ * @author agent
+ */
+public class GameRecordWriter implements Closeable {
+	public static final int MAGIC=0x48455847;
+	public static final int VERSION=1;
+	public static final int HAS_STATS=4;
+	public static final int NO_WIN_RATE=0xffff;
+
+	private final OutputStream out;
+	private byte[] game=new byte[256];
+	private int length;
+
+	private GameRecordWriter(OutputStream out) {
+		this.out=out;
+	}
+
+	/**
+	 * Opens a game record file to add games to, creating it if it does not
+	 * 	exist.
+	 *
+	 * @param file The file
+	 *
+	 * @return The writer
+	 *
+	 * @throws IOException If the file cannot be written or is not a game
+	 * 	record file
+	 */
+	public static GameRecordWriter open(Path file) throws IOException {
+		boolean fresh=!Files.exists(file) || Files.size(file)==0;
+		if (!fresh) {
+			try (DataInputStream in=new DataInputStream(Files.newInputStream(file))) {
+				if (in.readInt()!=MAGIC || in.readInt()!=VERSION) {
+					throw new IOException(file+" is not a version "+VERSION+" game record file");
+				}
+			}
+		}
+
+		OutputStream stream=Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		GameRecordWriter writer=new GameRecordWriter(new BufferedOutputStream(stream, 1<<16));
+		if (fresh) {
+			writer.writeHeader();
+		}
+
+		return writer;
+	}
+
+	/**
+	 * Appends a game.
+	 *
+	 * @param size The board size
+	 * @param white White's name
+	 * @param black Black's name
+	 * @param winner The winning colour, or Constants.EMPTY if the game did
+	 * 	not finish
+	 * @param moves The cells played, in order
+	 * @param visits The root visits behind each move, or null if there are
+	 * 	no statistics
+	 * @param winRates The win rate behind each move, from 0 to 1 or
+	 * 	negative if not known; ignored without visits
+	 * @param count The number of moves
+	 *
+	 * @throws IOException If the game cannot be written
+	 */
+	public synchronized void write(int size, String white, String black, int winner,
+		int[] moves, int[] visits, double[] winRates, int count) throws IOException {
+		length=0;
+		writeByte(size);
+		writeByte(winner | (visits!=null ? HAS_STATS : 0));
+		writeVarint(count);
+		writeName(white);
+		writeName(black);
+
+		boolean wide=size*size>256;
+		for (int i=0; i<count; i++) {
+			if (wide) {
+				writeByte(moves[i]>>>8);
+			}
+			writeByte(moves[i]);
+		}
+
+		if (visits!=null) {
+			for (int i=0; i<count; i++) {
+				writeInt(visits[i]);
+				int rate=winRates[i]<0 ? NO_WIN_RATE : (int)Math.round(Math.min(winRates[i], 1)*(NO_WIN_RATE-1));
+				writeByte(rate>>>8);
+				writeByte(rate);
+			}
+		}
+
+		// The length goes first but is only known once the body is built,
+		// 	so it is put after the body and written out ahead of it.
+		int body=length;
+		writeVarint(body);
+		out.write(game, body, length-body);
+		out.write(game, 0, body);
+	}
+
+	/**
+	 * Writes any buffered games to the file.
+	 *
+	 * @throws IOException If the games cannot be written
+	 */
+	public synchronized void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	private void writeHeader() throws IOException {
+		length=0;
+		writeInt(MAGIC);
+		writeInt(VERSION);
+		out.write(game, 0, length);
+	}
+
+	private void writeName(String name) {
+		byte[] bytes=name.getBytes(StandardCharsets.UTF_8);
+		writeVarint(bytes.length);
+		for (byte b : bytes) {
+			writeByte(b);
+		}
+	}
+
+	private void writeVarint(int n) {
+		for (; n>=0x80 || n<0; n>>>=7) {
+			writeByte(n&0x7f | 0x80);
+		}
+		writeByte(n);
+	}
+
+	private void writeInt(int n) {
+		writeByte(n>>>24);
+		writeByte(n>>>16);
+		writeByte(n>>>8);
+		writeByte(n);
+	}
+
+	private void writeByte(int b) {
+		if (length==game.length) {
+			game=Arrays.copyOf(game, length*2);
+		}
+		game[length++]=(byte)b;
+	}
+}
@@ -0,0 +1,184 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A node arena on the heap, as parallel primitive arrays, one per field.
+ * 	Fields that several threads update are reached through array
+ * 	VarHandles. Since Java arrays are indexed by ints, it holds at most
+ * 	MAX_EDGES edges.
+ *
+ * @author agent
+ */
+public class HeapNodeArena extends NodeArena {
+	private static final VarHandle LONGS=MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle INTS=MethodHandles.arrayElementVarHandle(int[].class);
+
+	// The most edges an array can hold on common JVMs.
+	public static final long MAX_EDGES=Integer.MAX_VALUE-8;
+
+	private final long[] stats;
+	private final int[] state;
+	private final long[] edges;
+	private final int[] moves;
+	private final int[] widened;
+	private final int[] proof;
+	private final int[] copy;
+
+	private final int[] edgeMove;
+	private final int[] edgeTarget;
+	private final long[] edgeAmaf;
+
+	/**
+	 * Creates an arena with room for a fixed number of nodes and edges.
+	 *
+	 * @param nodes The most nodes the arena can hold
+	 * @param edges The most edges the arena can hold, up to MAX_EDGES
+	 */
+	public HeapNodeArena(int nodes, long edges) {
+		super(nodes, edges);
+		if (edges>MAX_EDGES) {
+			throw new IllegalArgumentException("a heap arena holds at most "+MAX_EDGES+" edges, not "+edges);
+		}
+		stats=new long[nodes];
+		state=new int[nodes];
+		this.edges=new long[nodes];
+		moves=new int[nodes];
+		widened=new int[nodes];
+		proof=new int[nodes];
+		copy=new int[nodes];
+		edgeMove=new int[(int)edges];
+		edgeTarget=new int[(int)edges];
+		edgeAmaf=new long[(int)edges];
+	}
+
+	@Override
+	protected void clearNode(int node) {
+		stats[node]=0;
+		state[node]=LEAF;
+		edges[node]=0;
+		moves[node]=0;
+		widened[node]=0;
+		proof[node]=UNPROVEN;
+	}
+
+	@Override
+	public long getStats(int node) {
+		return (long)LONGS.getVolatile(stats, node);
+	}
+
+	@Override
+	public void setStats(int node, long s) {
+		stats[node]=s;
+	}
+
+	@Override
+	public long addStats(int node, int visits, int halfWins) {
+		long delta=((long)visits<<32)+halfWins;
+		return (long)LONGS.getAndAdd(stats, node, delta)+delta;
+	}
+
+	@Override
+	public int getProof(int node) {
+		return (int)INTS.getVolatile(proof, node);
+	}
+
+	@Override
+	public void setProof(int node, int p) {
+		INTS.setVolatile(proof, node, p);
+	}
+
+	@Override
+	public int getState(int node) {
+		return (int)INTS.getVolatile(state, node);
+	}
+
+	@Override
+	public boolean changeState(int node, int from, int to) {
+		return INTS.compareAndSet(state, node, from, to);
+	}
+
+	@Override
+	public void setEdges(int node, long first, int count, int moves, int wide) {
+		edges[node]=packEdges(first, count);
+		this.moves[node]=moves;
+		widened[node]=wide;
+		INTS.setVolatile(state, node, EXPANDED);
+	}
+
+	@Override
+	public void growEdges(int node, long first, int count, int moves) {
+		this.moves[node]=moves;
+		LONGS.setVolatile(edges, node, packEdges(first, count));
+	}
+
+	@Override
+	public int getWidened(int node) {
+		return (int)INTS.getVolatile(widened, node);
+	}
+
+	@Override
+	public boolean claimEdge(int node, int wide) {
+		return INTS.compareAndSet(widened, node, wide, wide+1);
+	}
+
+	@Override
+	public long getEdges(int node) {
+		return (long)LONGS.getVolatile(edges, node);
+	}
+
+	@Override
+	public int getMoveCount(int node) {
+		return moves[node];
+	}
+
+	@Override
+	public int getCopy(int node) {
+		return copy[node];
+	}
+
+	@Override
+	public void setCopy(int node, int c) {
+		copy[node]=c;
+	}
+
+	@Override
+	public void setEdge(long edge, int move, int target) {
+		edgeMove[(int)edge]=move;
+		edgeTarget[(int)edge]=target;
+		edgeAmaf[(int)edge]=0;
+	}
+
+	@Override
+	public void setEdgeTarget(long edge, int target) {
+		INTS.setRelease(edgeTarget, (int)edge, target);
+	}
+
+	@Override
+	public long getAmaf(long edge) {
+		return (long)LONGS.getVolatile(edgeAmaf, (int)edge);
+	}
+
+	@Override
+	public void setAmaf(long edge, long s) {
+		edgeAmaf[(int)edge]=s;
+	}
+
+	@Override
+	public void addAmaf(long edge, int visits, int halfWins) {
+		LONGS.getAndAdd(edgeAmaf, (int)edge, ((long)visits<<32)+halfWins);
+	}
+
+	@Override
+	public int getEdgeMove(long edge) {
+		return edgeMove[(int)edge];
+	}
+
+	@Override
+	public int getEdgeTarget(long edge) {
+		return (int)INTS.getAcquire(edgeTarget, (int)edge);
+	}
+}
@@ -0,0 +1,134 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+/**
+ * The shape of a Hex board of a given size: which cells neighbour each other
+ * 	and where the bridges are. The tables are worked out once per size and
+ * 	shared, so walking the board never allocates.
+ *
+ * Directions are numbered 0 to 5 in order around a cell. The neighbour in
+ * 	direction i is at the offset (RX[i], RY[i]). The bridge in direction i
+ * 	jumps over the neighbours in directions i and i+1 (mod 6), its two
+ * 	carriers, to the cell at the sum of their offsets.
+ *
+ * @author agent
+ */
+public class HexTopology {
+	public static final int DIRECTIONS=6;
+
+	private static final int[] RX={1, 1, 0, -1, -1, 0};
+	private static final int[] RY={0, 1, 1, 0, -1, -1};
+
+	private static final HexTopology[] TOPOLOGIES=new HexTopology[Position.MAX_SIZE+1];
+
+	private final int size;
+	private final int[] neighbours;
+	private final int[] bridges;
+	private final int[] edges;
+
+	private HexTopology(int size) {
+		this.size=size;
+		neighbours=new int[size*size*DIRECTIONS];
+		bridges=new int[size*size*DIRECTIONS];
+		edges=new int[size*size*DIRECTIONS];
+
+		for (int y=0; y<size; y++) {
+			for (int x=0; x<size; x++) {
+				int base=(y*size+x)*DIRECTIONS;
+
+				for (int i=0; i<DIRECTIONS; i++) {
+					int j=i==DIRECTIONS-1 ? 0 : i+1;
+					neighbours[base+i]=cell(x+RX[i], y+RY[i]);
+					bridges[base+i]=cell(x+RX[i]+RX[j], y+RY[i]+RY[j]);
+					edges[base+i]=edge(x+RX[i], y+RY[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the topology for a board size.
+	 *
+	 * @param size The length of a side of the board
+	 *
+	 * @return The shared topology
+	 */
+	public static synchronized HexTopology forSize(int size) {
+		if (TOPOLOGIES[size]==null) {
+			TOPOLOGIES[size]=new HexTopology(size);
+		}
+
+		return TOPOLOGIES[size];
+	}
+
+	/**
+	 * Gets the length of a side of the board.
+	 *
+	 * @return The board size
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the neighbour table. The neighbour of a cell in direction i is at
+	 * 	index cell*DIRECTIONS+i, and is -1 where that is off the board.
+	 *
+	 * @return The shared table, which must not be modified
+	 */
+	public int[] getNeighbours() {
+		return neighbours;
+	}
+
+	/**
+	 * Gets the bridge table. The far end of the bridge from a cell in
+	 * 	direction i is at index cell*DIRECTIONS+i, and is -1 where that is
+	 * 	off the board. Its carriers are the neighbours in directions i and
+	 * 	i+1 (mod 6), which are always on the board when the far end is.
+	 *
+	 * @return The shared table, which must not be modified
+	 */
+	public int[] getBridges() {
+		return bridges;
+	}
+
+	/**
+	 * Gets the edge table. Where the neighbour of a cell in direction i is
+	 * 	off the board, the entry at index cell*DIRECTIONS+i is the colour
+	 * 	whose edge it falls on: Constants.WHITE above and below the board,
+	 * 	Constants.BLACK to its sides. It is Constants.EMPTY where the
+	 * 	neighbour is on the board or off a corner, beyond both edges.
+	 *
+	 * @return The shared table, which must not be modified
+	 */
+	public int[] getEdges() {
+		return edges;
+	}
+
+	/**
+	 * Gets the direction after another, going round a cell.
+	 *
+	 * @param i A direction
+	 *
+	 * @return The next direction
+	 */
+	public static int next(int i) {
+		return i==DIRECTIONS-1 ? 0 : i+1;
+	}
+
+	private int cell(int x, int y) {
+		return x>=0 && x<size && y>=0 && y<size ? y*size+x : -1;
+	}
+
+	private int edge(int x, int y) {
+		boolean column=x<0 || x>=size;
+		boolean row=y<0 || y>=size;
+
+		if (row==column) {
+			return Constants.EMPTY;
+		}
+
+		return row ? Constants.WHITE : Constants.BLACK;
+	}
+}
@@ -0,0 +1,293 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+/**
+ * Finds empty cells that need not be played, from the stones and edges
+ * 	around each one, and fills them in.
+ *
+ * A cell is dead if its colour can never change who wins. That is so when
+ * 	a player could only use it to join neighbours that are joined without
+ * 	it: the neighbours not held by the opponent form a single run around
+ * 	the cell, and every one but the two ends of the run is the player's
+ * 	own stone or edge. If White cannot use a cell it cannot matter to
+ * 	Black either, since Black wins exactly when White does not connect.
+ *
+ * Two neighbouring empty cells are captured by a player if their taking
+ * 	either one leaves the other dead. Whichever the opponent takes, the
+ * 	player answers in the other, so both might as well be the player's.
+ *
+ * Dead cells are filled with either colour and captured cells with their
+ * 	captor's, which leaves the winner with best play unchanged, and the
+ * 	filled board is checked again until nothing more is found. Any move
+ * 	that wins can then be swapped for one of the cells still empty, since
+ * 	an extra stone never hurts in Hex.
+ *
+ * An instance holds its own scratch space and must only be used by one
+ * 	thread at a time.
+ *
+ * @author agent
+ */
+public class InferiorCells {
+	private final int cells;
+	private final int[] neighbours;
+	private final int[] edges;
+
+	// The colour of every cell as cells are filled in, and the filled board.
+	private final int[] colour;
+	// The empty cells still to be looked at, and which cells are among them.
+	private final int[] work;
+	private final boolean[] queued;
+	private final Position filled;
+	private final Connectivity links;
+	private int winner;
+
+	/**
+	 * Creates an analyser for a board size.
+	 *
+	 * @param size The length of a side of the board
+	 */
+	public InferiorCells(int size) {
+		cells=size*size;
+		HexTopology topology=HexTopology.forSize(size);
+		neighbours=topology.getNeighbours();
+		edges=topology.getEdges();
+		colour=new int[cells];
+		work=new int[cells];
+		queued=new boolean[cells];
+		filled=new Position(size);
+		links=new Connectivity(size);
+	}
+
+	/**
+	 * Fills in the dead and captured cells of a position.
+	 *
+	 * @param board The position, which is left as it was
+	 * @param moves Receives the cells still empty once filled in
+	 *
+	 * @return The number of cells still empty
+	 */
+	public int analyse(Position board, int[] moves) {
+		filled.copyFrom(board);
+		int top=0;
+		for (int cell=0; cell<cells; cell++) {
+			colour[cell]=board.get(cell);
+			queued[cell]=colour[cell]==Constants.EMPTY;
+			if (queued[cell]) {
+				work[top++]=cell;
+			}
+		}
+
+		// A fill can only change the patterns of cells up to two steps
+		// 	away, so only those are looked at again.
+		while (top>0) {
+			int cell=work[--top];
+			queued[cell]=false;
+			if (colour[cell]!=Constants.EMPTY || occupied(cell)<3) {
+				continue;
+			}
+
+			int other=-1;
+			if (useless(cell, Constants.WHITE)) {
+				fill(cell, Constants.BLACK);
+			} else if (useless(cell, Constants.BLACK)) {
+				fill(cell, Constants.WHITE);
+			} else {
+				other=fillCaptured(cell);
+				if (other<0) {
+					continue;
+				}
+				top=requeue(other, top);
+			}
+			top=requeue(cell, top);
+		}
+
+		links.reset(filled);
+		winner=links.getWinner();
+
+		int count=filled.getEmptyCount();
+		for (int i=0; i<count; i++) {
+			moves[i]=filled.getEmpty(i);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Gets the position from the last analysis with its dead and captured
+	 * 	cells filled in.
+	 *
+	 * @return The filled position, which is overwritten by the next analysis
+	 */
+	public Position getFilled() {
+		return filled;
+	}
+
+	/**
+	 * Gets who has connected on the filled position from the last analysis,
+	 * 	which is who wins the original one with best play.
+	 *
+	 * @return The winning colour, or Constants.EMPTY if it is still open
+	 */
+	public int getWinner() {
+		return winner;
+	}
+
+	/**
+	 * Queues the empty cells within two steps of a cell that was filled.
+	 *
+	 * @return The new top of the work stack
+	 */
+	private int requeue(int cell, int top) {
+		for (int i=cell*HexTopology.DIRECTIONS; i<(cell+1)*HexTopology.DIRECTIONS; i++) {
+			int n=neighbours[i];
+			if (n<0) {
+				continue;
+			}
+
+			for (int j=n*HexTopology.DIRECTIONS; j<(n+1)*HexTopology.DIRECTIONS; j++) {
+				int m=neighbours[j];
+				if (m>=0 && colour[m]==Constants.EMPTY && !queued[m]) {
+					queued[m]=true;
+					work[top++]=m;
+				}
+			}
+			if (colour[n]==Constants.EMPTY && !queued[n]) {
+				queued[n]=true;
+				work[top++]=n;
+			}
+		}
+
+		return top;
+	}
+
+	/**
+	 * Looks for an empty neighbour that makes a captured pair with a cell,
+	 * 	and fills both in if there is one.
+	 *
+	 * @return The neighbour that was filled, or -1
+	 */
+	private int fillCaptured(int cell) {
+		for (int i=cell*HexTopology.DIRECTIONS; i<(cell+1)*HexTopology.DIRECTIONS; i++) {
+			int n=neighbours[i];
+			if (n<0 || colour[n]!=Constants.EMPTY || occupied(n)<3) {
+				continue;
+			}
+
+			for (int c=Constants.WHITE; c<=Constants.BLACK; c++) {
+				if (killsOther(cell, n, c) && killsOther(n, cell, c)) {
+					fill(cell, c);
+					fill(n, c);
+					return n;
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Checks if a stone on one cell would leave another dead.
+	 */
+	private boolean killsOther(int cell, int other, int c) {
+		colour[cell]=c;
+		boolean dead=useless(other, Constants.WHITE) || useless(other, Constants.BLACK);
+		colour[cell]=Constants.EMPTY;
+
+		return dead;
+	}
+
+	/**
+	 * Checks if a cell can never help a player connect: the neighbours the
+	 * 	opponent does not hold form one run around it whose inner cells are
+	 * 	all the player's. A cell off a corner of the board is never judged.
+	 */
+	private boolean useless(int cell, int player) {
+		int base=cell*HexTopology.DIRECTIONS;
+		int usable=0;
+		int starts=0;
+		int start=-1;
+
+		for (int i=0; i<HexTopology.DIRECTIONS; i++) {
+			int c=around(base, i);
+			if (c<0) {
+				return false;
+			}
+			if (c!=Constants.EMPTY && c!=player) {
+				continue;
+			}
+
+			usable++;
+			int before=around(base, i==0 ? HexTopology.DIRECTIONS-1 : i-1);
+			if (before!=Constants.EMPTY && before!=player) {
+				starts++;
+				start=i;
+			}
+		}
+
+		if (usable==HexTopology.DIRECTIONS) {
+			// With no opponent around, the run may begin anywhere.
+			for (int s=0; s<HexTopology.DIRECTIONS; s++) {
+				if (inside(base, s, HexTopology.DIRECTIONS, player)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		return usable==0 || starts==1 && inside(base, start, usable, player);
+	}
+
+	/**
+	 * Checks if the cells strictly inside a run around a cell are all a
+	 * 	player's.
+	 */
+	private boolean inside(int base, int start, int length, int player) {
+		for (int k=1; k<length-1; k++) {
+			if (around(base, (start+k)%HexTopology.DIRECTIONS)!=player) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Gets the colour next to a cell in a direction, counting an edge as
+	 * 	its owner's stone.
+	 *
+	 * @return The colour, or -1 off a corner of the board
+	 */
+	private int around(int base, int i) {
+		int n=neighbours[base+i];
+		if (n>=0) {
+			return colour[n];
+		}
+
+		return edges[base+i]==Constants.EMPTY ? -1 : edges[base+i];
+	}
+
+	/**
+	 * Counts the stones and edges next to a cell. A cell needs at least
+	 * 	four to be dead, so one with fewer than three cannot even be made
+	 * 	dead by one more stone.
+	 */
+	private int occupied(int cell) {
+		int base=cell*HexTopology.DIRECTIONS;
+		int count=0;
+
+		for (int i=0; i<HexTopology.DIRECTIONS; i++) {
+			if (around(base, i)!=Constants.EMPTY) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	private void fill(int cell, int c) {
+		colour[cell]=c;
+		filled.play(cell, c);
+	}
+}
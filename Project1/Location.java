@@ -27,85 +27,26 @@ public class Location {
 	/**
 	 * Gets Locations that share an edge with this Location.
 	 *
+	 * @param size The length of a side of the board
+	 *
 	 * @return An ArrayList of Locations that are adjacent
 	 */
-	public ArrayList<Location> getAdjacentLocations() {
+	public ArrayList<Location> getAdjacentLocations(int size) {
 		ArrayList<Location> l=new ArrayList<Location>();
+		int[] neighbours=HexTopology.forSize(size).getNeighbours();
+		int base=(y*size+x)*HexTopology.DIRECTIONS;
 
-		if (x>0) {
-			l.add(new Location(x-1, y));
-		}
-
-		if (x<6) {
-			l.add(new Location(x+1, y));
-		}
-
-		if (y>0) {
-			l.add(new Location(x, y-1));
-		}
-
-		if (y<6) {
-			l.add(new Location(x, y+1));
-		}
-
-		if (x>0 && y>0) {
-			l.add(new Location(x-1, y-1));
-		}
+		for (int i=0; i<HexTopology.DIRECTIONS; i++) {
+			int n=neighbours[base+i];
 
-		if (x<6 && y<6) {
-			l.add(new Location(x+1, y+1));
+			if (n>=0) {
+				l.add(new Location(n%size, n/size));
+			}
 		}
 
 		return l;
 	}
 
-	/**
-	 * Gets Bridges that include this Location as an end Location.
-	 *
-	 * @return An ArrayList of Bridges that are adjacent
-	 */
-	public ArrayList<Bridge> getBridges() {
-		ArrayList<Bridge> bridges=new ArrayList<Bridge>();
-
-		if (x+2<7 && y+1<7 && x-2>0 && y-1>0) {
-			Bridge b=new Bridge();
-			b.l1=new Location(x+2, y+1);
-			b.l2=new Location(x-2, y-1);
-
-			ArrayList<Location> midLocs=new ArrayList<Location>();
-			midLocs.add(new Location(x+1, y));
-			midLocs.add(new Location(x+1, y+1));
-			midLocs.add(new Location(x-1, y));
-			midLocs.add(new Location(x-1, y-1));
-
-			b.mids=midLocs;
-
-			b.dir=2;
-
-			bridges.add(b);
-		}
-
-		if (x+1<7 && y-1>0 && x-1>0 && y+1<7) {
-			Bridge b=new Bridge();
-			b.l1=new Location(x+1, y-1);
-			b.l2=new Location(x-1, y+1);
-
-			ArrayList<Location> midLocs=new ArrayList<Location>();
-			midLocs.add(new Location(x+1, y));
-			midLocs.add(new Location(x, y-1));
-			midLocs.add(new Location(x-1, y));
-			midLocs.add(new Location(x, y+1));
-
-			b.mids=midLocs;
-
-			b.dir=1;
-
-			bridges.add(b);
-		}
-
-		return bridges;
-	}
-
 	/**
 	 * Compares this Location and another for equality.
 	 *
@@ -1,241 +1,1687 @@
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;  //
-import javax.swing.JOptionPane;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class MCAI extends AI {
     private int aiplayer = 1;
-    private int minLen = 49;
-    private Location lastPlayed;
-    public int diffLevel = 75;
     private static final int SIMULATION_TIME = 4000;
 
-    private class Node {
-        int[][] board;
-        Location move;
-        int visits;
-        double wins;
-        ArrayList<Node> children;
-        Node parent;
-        int playerToMove;
-
-        Node(int[][] board, Location move, Node parent, int playerToMove) {
-            this.board = Board.BoardCopy(board);
-            this.move = move;
-            this.visits = 0;
-            this.wins = 0;
-            this.children = new ArrayList<>();
-            this.parent = parent;
-            this.playerToMove = playerToMove;
-        }
-
-        Node getBestChild() {
-            Node best = null;
-            double bestValue = Double.NEGATIVE_INFINITY;
-            
-            for (Node child : children) {
-                if (child.visits == 0) {
-                    return child;
-                }
-                double ucb1 = (child.wins / child.visits) + 
-                             Math.sqrt(2 * Math.log(this.visits) / child.visits);
-                if (ucb1 > bestValue) {
-                    bestValue = ucb1;
-                    best = child;
-                }
-            }
-            return best;
+    // Root parallelism: each of the threads grows its own tree from the
+    // same position and the root statistics are summed at the deadline.
+    // With a shared tree the threads all descend one tree instead, and
+    // virtual loss steers them onto different branches.
+    private int threads = 1;
+    private boolean sharedTree = false;
+    private ExecutorService pool;
+    private static final int VIRTUAL_LOSS = 3;
+
+    // Room in each tree's arena, and entries in its transposition table.
+    // Expanded nodes only lay out edges for the moves they are widened into
+    // (see EDGE_BLOCK), so a tree ends up with about two edges for each
+    // node on any size of board, and each node comes with room for
+    // EDGES_PER_NODE. Unless a node budget is set, the arena holds as many
+    // nodes as fit in ARENA_BYTES with their edges. A tree that fills its
+    // arena with either nodes or edges is pruned and the search carries on.
+    private static final long ARENA_BYTES = 1 << 25;
+    private static final int EDGES_PER_NODE = 3;
+    private static final int MIN_NODE_BUDGET = 1 << 10;
+    private static final int TABLE_SIZE = 1 << 16;
+
+    // Progressive widening: a node is expanded once it has EXPAND_VISITS
+    // visits, and a node with n visits may have 1 + WIDEN_FACTOR * sqrt(n)
+    // children, taken in prior order. Working out the prior order costs two
+    // searches for shortest connections, so only nodes no deeper than
+    // ORDER_DEPTH, counting the root as 1, do it; nodes further down take
+    // the order of their parent's edges.
+    private static final int EXPAND_VISITS = 8;
+    private static final int ORDER_DEPTH = 2;
+    private static final double WIDEN_FACTOR = 1.0;
+
+    // Edges are only laid out for the moves a node is widened into: an
+    // expanded node gets a block of EDGE_BLOCK edges, and a node that has
+    // widened into its whole block gets one twice the size. Most nodes are
+    // never visited often enough to need more than the first block. Nodes
+    // no deeper than VC_DEPTH are few, and working out their moves costs
+    // far more, so they get an edge for every move at once.
+    private static final int EDGE_BLOCK = 4;
+
+    // RAVE: a child's value is blended from its own results and its
+    // all-moves-as-first results, trusting the latter less as its visits
+    // grow. At RAVE_EQUIVALENCE visits the two count for about the same.
+    private static final double RAVE_EQUIVALENCE = 1000;
+
+    // Nodes no deeper than VC_DEPTH, counting the root as 1, are checked for
+    // virtual connections when expanded: a position either player has won
+    // is proven, and a threat to connect leaves only the moves that stop
+    // it. Further down the check would cost more than it saves.
+    private static final int VC_DEPTH = 2;
+
+    // The random games played out from each leaf the search reaches.
+    private int playouts = 1;
+
+    // The most nodes each tree may hold, and whether they are kept outside
+    // the heap.
+    private int nodeBudget = 0;
+    private boolean offHeap = false;
+
+    // How long each move may be searched for, and how many random games the
+    // last search played.
+    private int timeLimit = SIMULATION_TIME;
+    private long lastPlayouts;
+
+    // The root visits and win rate of the last move chosen by searching.
+    private int lastVisits;
+    private double lastWinRate = -1;
+
+    // Early stopping: every CHECK_INTERVAL iterations a searcher checks if
+    // the runner-up at the root could still catch the leader at the rate
+    // the search is going, and stops if it could not.
+    private static final int CHECK_INTERVAL = 256;
+
+    // Every call to getPlayLocation is numbered, and stop() only ends the
+    // one it finds running, so a stop that comes in after a search is over
+    // cannot cut the next one short.
+    // A search numbered by beginSearch keeps its number when it starts.
+    private long searchCount;
+    private volatile long running;
+    private volatile long stopped;
+    private boolean begun;
+
+    // Moves to play without searching, read from a memory-mapped file.
+    private OpeningBook book;
+
+    // The trees from the previous search, kept so the next search can carry
+    // on from the node for the position it is given, unless they have been
+    // forgotten since.
+    private Tree[] trees;
+    private boolean forgotten;
+
+    // Pondering: once a move is chosen, the trees are moved on past it and
+    // searched in the background while the opponent thinks, for at most
+    // ponderTime. The next search stops the pondering and picks up the
+    // subtree of the opponent's actual reply.
+    private boolean pondering = false;
+    private int ponderTime = 60000;
+    private ExecutorService ponderer;
+    private Future<?> ponderTask;
+    private volatile boolean ponderStop;
+
+    /**
+     * A search tree: the position at its root, the arena its nodes live in
+     * and the table used to find transpositions. Positions reached by
+     * different move orders, or that are the same after turning the board
+     * round, share one node, so the tree is really a DAG.
+     *
+     * Nodes hold no boards. Searchers rebuild the position by replaying the
+     * moves on the edges from the root. Edge moves are stored in the frame
+     * of the node's canonical orientation (see Position.toCanonical), so
+     * that they mean the same thing whichever way round the node was
+     * reached.
+     */
+    static class Tree {
+        final Position rootBoard;
+        NodeArena arena;
+        // A second arena that a reused subtree is copied into, allocated the
+        // first time it is needed.
+        NodeArena spare;
+        final TranspositionTable table;
+        final boolean offHeap;
+        int root;
+        int toMove;
+        // The connections on the root position, which searchers build on
+        // to spot won positions as they descend.
+        final Connectivity rootLinks;
+
+        Tree(int size, int nodes, boolean offHeap) {
+            rootBoard = new Position(size);
+            rootLinks = new Connectivity(size);
+            this.offHeap = offHeap;
+            arena = newArena(nodes, edgesFor(nodes, size * size), offHeap);
+            table = new TranspositionTable(TABLE_SIZE, n -> NodeArena.visits(arena.getStats(n)));
+        }
+
+        /**
+         * Empties the tree and starts again from a new position.
+         */
+        void reset(Position board, int playerToMove) {
+            rootBoard.copyFrom(board);
+            rootLinks.reset(board);
+            toMove = playerToMove;
+            arena.reset();
+            table.clear();
+            root = arena.newNode();
         }
     }
 
+    // Registering the MBean and the Flight Recorder events takes hundreds of
+    // milliseconds, which is better spent before any move is timed.
+    static {
+        SearchStats.get();
+        new MoveEvent();
+        new SearchEvent();
+    }
+
     public MCAI() {}
 
     public MCAI(int player) {
         aiplayer = player;
     }
 
+    /**
+     * Creates an AI that searches with several threads at once.
+     *
+     * @param player The colour to play
+     * @param threads The number of independent trees to search in parallel
+     */
+    public MCAI(int player, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, got " + threads);
+        }
+        aiplayer = player;
+        this.threads = threads;
+        if (threads > 1) {
+            // Idle threads die off, so that AIs which are thrown away, as
+            // in the arena, do not leave their threads behind.
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "MCAI search");
+                    t.setDaemon(true);
+                    return t;
+                });
+            executor.allowCoreThreadTimeOut(true);
+            pool = executor;
+        }
+    }
+
+    /**
+     * Creates an AI that searches with several threads at once.
+     *
+     * @param player The colour to play
+     * @param threads The number of threads to search with
+     * @param sharedTree true to have every thread work on one tree, false to
+     *     give each thread its own tree
+     */
+    public MCAI(int player, int threads, boolean sharedTree) {
+        this(player, threads);
+        this.sharedTree = sharedTree;
+    }
+
+    /**
+     * Gives the AI an opening book to play from. Positions in the book are
+     * answered without searching.
+     *
+     * @param book The book, or null for none
+     */
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Sets how many random games are played out from each leaf. Larger
+     * batches spend less time in the tree for each game, at the cost of
+     * growing the tree more slowly.
+     *
+     * @param playouts The number of games per leaf
+     */
+    public void setPlayouts(int playouts) {
+        if (playouts < 1) {
+            throw new IllegalArgumentException("playouts must be at least 1, got " + playouts);
+        }
+        this.playouts = playouts;
+    }
+
+    /**
+     * Sets the most nodes each search tree may hold. A tree that fills up
+     * has its least visited subtrees collapsed into leaves, which keep their
+     * visits and wins, and the search carries on. Each node of the budget
+     * comes with room for EDGES_PER_NODE edges, so it costs 88 bytes on any
+     * size of board, or twice that once a tree has been reused or pruned,
+     * since both need a second arena to copy into. Without a budget each
+     * tree gets 32MB. A budget whose trees do not fit in the memory the JVM
+     * allows makes the next search fail before anything is allocated.
+     *
+     * @param nodes The node budget per tree
+     */
+    public void setNodeBudget(int nodes) {
+        if (nodes < MIN_NODE_BUDGET) {
+            throw new IllegalArgumentException("node budget must be at least " + MIN_NODE_BUDGET + ", got " + nodes);
+        }
+        this.nodeBudget = nodes;
+    }
+
+    /**
+     * Chooses where search trees keep their nodes. Off the heap, the
+     * garbage collector never has to scan the tree, so very large node
+     * budgets cause no pauses and need no larger heap. Direct memory is
+     * capped by -XX:MaxDirectMemorySize instead.
+     *
+     * @param offHeap true to keep nodes in direct memory, false to keep
+     *     them in arrays on the heap
+     */
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Sets how long each move is searched for.
+     *
+     * @param millis The time limit in milliseconds
+     */
+    public void setTimeLimit(int millis) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("time limit must be at least 1ms, got " + millis);
+        }
+        this.timeLimit = millis;
+    }
+
+    /**
+     * Gets the number of random games played out by the last search, over
+     * all threads.
+     *
+     * @return The playout count, or 0 if the last move was not searched
+     */
+    @Override
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    @Override
+    public int getLastVisits() {
+        return lastVisits;
+    }
+
+    @Override
+    public double getLastWinRate() {
+        return lastWinRate;
+    }
+
+    @Override
+    public void stop() {
+        stopped = running;
+    }
+
+    @Override
+    public void beginSearch() {
+        running = ++searchCount;
+        begun = true;
+    }
+
+    /**
+     * Makes the next search start from an empty tree instead of carrying on
+     * from the last one. The trees' memory is kept for it, so that searching
+     * the same position again costs the same as the first time without
+     * allocating anything.
+     */
+    public void forgetTrees() {
+        forgotten = true;
+    }
+
+    /**
+     * Stops pondering, since there is no reply to think about, and starts
+     * the next search from an empty tree.
+     */
+    @Override
+    public void endGame() {
+        stopPondering();
+        forgotten = true;
+    }
+
+    /**
+     * Turns searching during the opponent's turn on or off.
+     *
+     * @param pondering true to keep searching after each move
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+    }
+
+    /**
+     * Sets the longest the search may carry on into the opponent's turn.
+     *
+     * @param millis The pondering time limit in milliseconds
+     */
+    public void setPonderTime(int millis) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("ponder time must be at least 1ms, got " + millis);
+        }
+        this.ponderTime = millis;
+    }
+
     public int getPlayerCode() {
         return aiplayer;
     }
 
-    private int calcN(int[][] board, int player, Location l, ArrayList<Location> visited, int count) {
-        if (count<minLen && ((player==1 && l.y==6) || (player==2 && l.x==6))) {
-            minLen=count;
-            return count;
-        } else if ((player==1 && l.y==6) || (player==2 && l.x==6)) {
+    /**
+     * Gets the number of stones the opponent still needs to connect.
+     *
+     * @return The distance, or PathEvaluator.UNREACHABLE once we have won
+     */
+    public double calcVal(Position board) {
+        int opp = aiplayer==1 ? 2 : 1;
+        return PathEvaluator.distance(board, opp);
+    }
+
+    private static int other(int player) {
+        return player == Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+    }
+
+    /**
+     * One search thread's scratch space and the tree it works on. Only the
+     * tree may be shared with other searchers, and then only through the
+     * atomic node statistics and the expansion state.
+     */
+    private class Searcher implements Runnable {
+        private final Tree tree;
+        private NodeArena arena;
+        private final int virtualLoss;
+        private final long deadline;
+        private final boolean ponder;
+        // The number of the search this searcher is part of.
+        private final long search;
+
+        // Set if the search stopped because the arena filled up. Only a
+        // shared tree needs to stop; a tree of one's own is pruned at once.
+        private boolean full;
+        // Set once a node has MAX_VISITS visits, when its counts are about
+        // to overflow.
+        private boolean saturated;
+
+        // The position at the end of the current descent, and the player
+        // to move there.
+        private final Position board;
+        private int toMove;
+        private final Connectivity links;
+
+        // Scratch space for narrowing the moves at a node and putting them
+        // in prior order.
+        private final InferiorCells inferior;
+        private final VirtualConnections connections;
+        private final int[] moves;
+        private final int[] region;
+        private final int[] ownCosts;
+        private final int[] oppCosts;
+        private final long[] order;
+        // The moves being put in their parent's order are marked in seen[]
+        // with the current stamp.
+        private final int[] seen;
+        private int stamp;
+
+        // The nodes visited on the current descent, root first. Since nodes
+        // can have several parents, results are backed up along this path.
+        // flipped records which of them were reached turned round from their
+        // canonical orientation.
+        private final int[] path;
+        private final boolean[] flipped;
+        private int depth;
+
+        // For every cell taken on the current descent, the index in the path
+        // of the node it was taken from, or -1.
+        private final int[] takenAt;
+
+        private final Playout playout;
+
+        // Telemetry for this thread's part of the search.
+        private long games;
+        private long iterations;
+        private int maxDepth;
+        private long evaluatorCalls;
+        private long selectTime;
+        private long expandTime;
+        private long simulateTime;
+        private long backpropagateTime;
+
+        Searcher(Tree tree, int virtualLoss, long deadline, boolean ponder) {
+            this.tree = tree;
+            this.arena = tree.arena;
+            this.virtualLoss = virtualLoss;
+            this.deadline = deadline;
+            this.ponder = ponder;
+            this.search = running;
+            int size = tree.rootBoard.getSize();
+            this.board = new Position(size);
+            this.links = new Connectivity(size);
+            this.inferior = new InferiorCells(size);
+            this.connections = new VirtualConnections(size);
+            this.moves = new int[size * size];
+            this.region = new int[size * size];
+            this.ownCosts = new int[size * size];
+            this.oppCosts = new int[size * size];
+            this.order = new long[size * size];
+            this.seen = new int[size * size];
+            this.path = new int[size * size + 2];
+            this.flipped = new boolean[size * size + 2];
+            this.takenAt = new int[size * size];
+            this.playout = new Playout(size);
+        }
+
+        @Override
+        public void run() {
+            SearchEvent event = new SearchEvent();
+            event.begin();
+
+            long time = System.nanoTime();
+            long started = System.currentTimeMillis();
+            int startVisits = NodeArena.visits(arena.getStats(tree.root));
+            // Every searcher makes at least one iteration, which gives the root
+            // a child to play even if the search is stopped at once.
+            while (iterations == 0 || System.currentTimeMillis() < deadline && !(ponder ? ponderStop : stopped == search)) {
+                if (saturated || isSolved()) {
+                    break;
+                }
+                if (!arena.hasRoom(board.getCellCount())) {
+                    // Only searchers on a shared tree charge virtual losses.
+                    if (virtualLoss > 0) {
+                        full = true;
+                        break;
+                    }
+                    prune(tree);
+                    arena = tree.arena;
+                }
+                if (!ponder && iterations % CHECK_INTERVAL == CHECK_INTERVAL - 1 && isDecided(started, startVisits)) {
+                    break;
+                }
+
+                int selected = select();
+                long selectedAt = System.nanoTime();
+                if (arena.getProof(selected) == NodeArena.UNPROVEN || selected == tree.root) {
+                    expand(selected);
+                }
+                long expandedAt = System.nanoTime();
+                int result;
+                int proof = arena.getProof(path[depth - 1]);
+                if (proof == NodeArena.UNPROVEN) {
+                    result = playout.play(board, toMove, playouts);
+                } else {
+                    // A solved position needs no playout.
+                    result = proof == NodeArena.PROVEN_WIN ? 2 * playouts : 0;
+                }
+                long simulatedAt = System.nanoTime();
+                backpropagate(result);
+                long done = System.nanoTime();
+
+                selectTime += selectedAt - time;
+                expandTime += expandedAt - selectedAt;
+                simulateTime += simulatedAt - expandedAt;
+                backpropagateTime += done - simulatedAt;
+                time = done;
+
+                iterations++;
+                games += playouts;
+                maxDepth = Math.max(maxDepth, depth);
+            }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.iterations = iterations;
+                event.playouts = games;
+                event.maxDepth = maxDepth;
+                event.evaluatorCalls = evaluatorCalls;
+                event.selectTime = selectTime;
+                event.expandTime = expandTime;
+                event.simulateTime = simulateTime;
+                event.backpropagateTime = backpropagateTime;
+                event.commit();
+            }
+        }
+
+        /**
+         * Checks if the root is proven and its children already show which
+         * move to play: a child that wins, or a proven loss for every move
+         * when the root is lost. A root can be proven before it has any
+         * children, when it was proven as a child in the tree being reused,
+         * and then it is searched until they show it.
+         */
+        private boolean isSolved() {
+            int root = tree.root;
+            if (arena.getProof(root) == NodeArena.UNPROVEN || arena.getState(root) != NodeArena.EXPANDED) {
+                return false;
+            }
+            long edges = arena.getEdges(root);
+            int count = NodeArena.edgeCount(edges);
+            boolean lost = count >= arena.getMoveCount(root) && arena.getWidened(root) >= count;
+            long first = NodeArena.firstEdge(edges);
+            for (long edge=first; edge<first+count; edge++) {
+                int child = arena.getEdgeTarget(edge);
+                int proof = child < 0 ? NodeArena.UNPROVEN : arena.getProof(child);
+                if (proof == NodeArena.PROVEN_WIN) {
+                    return true;
+                }
+                lost &= proof == NodeArena.PROVEN_LOSS;
+            }
+            return lost;
+        }
+
+        /**
+         * Checks if the move with the most root visits can no longer be
+         * overtaken before the deadline, even if every remaining iteration
+         * went to the runner-up.
+         *
+         * @param started When this searcher started
+         * @param startVisits The root's visits when this searcher started
+         */
+        private boolean isDecided(long started, int startVisits) {
+            long now = System.currentTimeMillis();
+            if (now <= started) {
+                return false;
+            }
+            int root = tree.root;
+            double rate = (double)(NodeArena.visits(arena.getStats(root)) - startVisits) / (now - started);
+            double remaining = rate * (deadline - now);
+
+            // Moves that are the same after turning the board round share a
+            // node, so only count a different node as the runner-up.
+            long edges = arena.getEdges(root);
+            long first = NodeArena.firstEdge(edges);
+            long end = first + Math.min(arena.getWidened(root), NodeArena.edgeCount(edges));
+            int best = -1;
+            int bestVisits = 0;
+            for (long edge=first; edge<end; edge++) {
+                int child = arena.getEdgeTarget(edge);
+                if (child >= 0 && NodeArena.visits(arena.getStats(child)) > bestVisits) {
+                    best = child;
+                    bestVisits = NodeArena.visits(arena.getStats(child));
+                }
+            }
+            int secondVisits = 0;
+            for (long edge=first; edge<end; edge++) {
+                int child = arena.getEdgeTarget(edge);
+                if (child >= 0 && child != best) {
+                    secondVisits = Math.max(secondVisits, NodeArena.visits(arena.getStats(child)));
+                }
+            }
+            return best >= 0 && bestVisits - secondVisits > remaining;
+        }
+
+        private int select() {
+            board.copyFrom(tree.rootBoard);
+            links.copyFrom(tree.rootLinks);
+            toMove = tree.toMove;
+            int node = tree.root;
+            Arrays.fill(takenAt, -1);
+            depth = 0;
+            flipped[depth] = board.getHash() != board.getCanonicalHash();
+            path[depth++] = node;
+            // The root is searched even when proven, to find the move that
+            // proves it.
+            while (arena.getState(node) == NodeArena.EXPANDED
+                    && (node == tree.root || arena.getProof(node) == NodeArena.UNPROVEN)) {
+                long edge = widen(node, false);
+                if (edge >= 0) {
+                    return descend(edge);
+                }
+                edge = getBestEdge(node);
+                if (edge < 0) {
+                    // Every child so far is a proven loss, so try another.
+                    edge = widen(node, true);
+                    return edge >= 0 ? descend(edge) : node;
+                }
+                node = descend(edge);
+            }
+            return node;
+        }
+
+        /**
+         * Plays an edge's move on the board, adds its node to the path and
+         * charges the node a virtual loss so that concurrent threads prefer
+         * other branches.
+         */
+        private int descend(long edge) {
+            int move = board.toCanonical(arena.getEdgeMove(edge));
+            board.play(move, toMove);
+            links.place(move, toMove);
+            takenAt[move] = depth - 1;
+            int node = arena.getEdgeTarget(edge);
+            if (links.hasConnected(toMove)) {
+                arena.setProof(node, NodeArena.PROVEN_WIN);
+            }
+            toMove = other(toMove);
+            flipped[depth] = board.getHash() != board.getCanonicalHash();
+            path[depth++] = node;
+            if (virtualLoss > 0) {
+                arena.addStats(node, virtualLoss, 0);
+            }
+            return node;
+        }
+
+        /**
+         * Picks the edge to the widened child with the best UCB1 value, taking
+         * the child's win rate as a blend of its own and its edge's
+         * all-moves-as-first win rates. A child proven to win is taken at
+         * once, and children proven to lose are never taken.
+         *
+         * @return The edge, or -1 if no child is ready yet
+         */
+        private long getBestEdge(int node) {
+            long edges = arena.getEdges(node);
+            long first = NodeArena.firstEdge(edges);
+            long end = first + Math.min(arena.getWidened(node), NodeArena.edgeCount(edges));
+            // A node reached through a transposition can have children with
+            // more visits than it has itself, so never take the log of zero.
+            double logVisits = Math.log(Math.max(NodeArena.visits(arena.getStats(node)), 1));
+            long best = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+
+            for (long edge=first; edge<end; edge++) {
+                int child = arena.getEdgeTarget(edge);
+                if (child < 0) {
+                    continue;
+                }
+                int proof = arena.getProof(child);
+                if (proof == NodeArena.PROVEN_WIN) {
+                    return edge;
+                } else if (proof == NodeArena.PROVEN_LOSS) {
+                    continue;
+                }
+                long s = arena.getStats(child);
+                int visits = NodeArena.visits(s);
+                if (visits == 0) {
+                    return edge;
+                }
+                double value = NodeArena.wins(s) / visits;
+                long amaf = arena.getAmaf(edge);
+                int amafVisits = NodeArena.visits(amaf);
+                if (amafVisits > 0) {
+                    double beta = Math.sqrt(RAVE_EQUIVALENCE / (3 * visits + RAVE_EQUIVALENCE));
+                    value = (1 - beta) * value + beta * NodeArena.wins(amaf) / amafVisits;
+                }
+                double ucb1 = value + Math.sqrt(2 * logVisits / visits);
+                if (ucb1 > bestValue) {
+                    bestValue = ucb1;
+                    best = edge;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Gives a node its next child in prior order, if the node's visits
+         * have grown enough for the widening schedule to allow another one.
+         * A node that has widened into every edge of its block first gets a
+         * bigger one.
+         *
+         * @param force true to ignore the widening schedule
+         * @return The edge to the new child, or -1 if the node is wide enough
+         */
+        private long widen(int node, boolean force) {
+            int wide = arena.getWidened(node);
+            int allowed = force ? Integer.MAX_VALUE : 1 + (int)(WIDEN_FACTOR * Math.sqrt(NodeArena.visits(arena.getStats(node))));
+            long edges = arena.getEdges(node);
+            int count = NodeArena.edgeCount(edges);
+            if (wide >= allowed || wide > count || wide >= arena.getMoveCount(node)) {
+                return -1;
+            }
+            if (wide < count) {
+                if (!arena.claimEdge(node, wide)) {
+                    return -1;
+                }
+            } else if (!isWidened(edges) || !arena.claimEdge(node, wide) || (edges = grow(node, edges)) < 0) {
+                return -1;
+            }
+
+            long edge = NodeArena.firstEdge(edges) + wide;
+            int move = board.toCanonical(arena.getEdgeMove(edge));
+            board.play(move, toMove);
+            long key = board.getKey(other(toMove));
+            int child = tree.table.get(key);
+            if (child < 0) {
+                child = arena.newNode();
+                if (child >= 0) {
+                    tree.table.put(key, child);
+                }
+            }
+            board.undo(move);
+
+            // If the arena is full the edge is left without a target, and is
+            // skipped until the tree is next copied, which makes it untried
+            // again.
+            if (child < 0) {
+                return -1;
+            }
+            arena.setEdgeTarget(edge, child);
+            return edge;
+        }
+
+        /**
+         * Checks that every edge of a block has its target, so that no thread
+         * is still filling one in and the block can be copied.
+         */
+        private boolean isWidened(long edges) {
+            long first = NodeArena.firstEdge(edges);
+            for (long edge=first; edge<first+NodeArena.edgeCount(edges); edge++) {
+                if (arena.getEdgeTarget(edge) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Moves a node's edges to a new block twice the size, or big enough
+         * for all of its moves if it has fewer or is near the root, with its
+         * next moves in prior order after the old edges. The caller has claimed the first new edge, so no other
+         * thread widens the node until the block is published. Updates made
+         * to the old edges' all-moves-as-first statistics while they are
+         * being copied are lost.
+         *
+         * The moves are worked out again, which may narrow them further if
+         * the tree has been reused since the node was expanded, and the
+         * node's number of moves is brought up to date.
+         *
+         * @param edges The node's packed edges
+         * @return The node's new packed edges, or -1 if it has no more moves,
+         *     was proven instead or the arena is full
+         */
+        private long grow(int node, long edges) {
+            long first = NodeArena.firstEdge(edges);
+            int count = NodeArena.edgeCount(edges);
+            int total = generateMoves(node);
+            if (total == 0) {
+                return -1;
+            }
+
+            stamp++;
+            for (long edge=first; edge<first+count; edge++) {
+                seen[arena.getEdgeMove(edge)] = stamp;
+            }
+            int fresh = 0;
+            for (int i=0; i<total; i++) {
+                int move = board.toCanonical((int)order[i]);
+                if (seen[move] != stamp) {
+                    order[fresh++] = move;
+                }
+            }
+            if (fresh == 0) {
+                arena.growEdges(node, first, count, count);
+                return -1;
+            }
+
+            int size = count + (depth <= VC_DEPTH ? fresh : Math.min(fresh, count));
+            long block = arena.newEdges(size);
+            if (block < 0) {
+                return -1;
+            }
+            for (int i=0; i<count; i++) {
+                arena.setEdge(block + i, arena.getEdgeMove(first + i), arena.getEdgeTarget(first + i));
+                arena.setAmaf(block + i, arena.getAmaf(first + i));
+            }
+            for (int i=count; i<size; i++) {
+                arena.setEdge(block + i, (int)order[i - count], -1);
+            }
+            arena.growEdges(node, block, size, count + fresh);
+            return NodeArena.packEdges(block, size);
+        }
+
+        /**
+         * Lays out a block of edges for a node's first moves in prior order,
+         * unless it is too new, another thread got there first or the arena
+         * is full, and descends into its first child to play out. The root is
+         * never too new, so that it has a child after the first iteration.
+         */
+        private void expand(int node) {
+            boolean young = node != tree.root && NodeArena.visits(arena.getStats(node)) < EXPAND_VISITS;
+            if (board.getEmptyCount() == 0 || young || !arena.hasRoom(EDGE_BLOCK)
+                    || !arena.changeState(node, NodeArena.LEAF, NodeArena.EXPANDING)) {
+                return;
+            }
+
+            int count = generateMoves(node);
+            int size = depth <= VC_DEPTH ? count : Math.min(count, EDGE_BLOCK);
+            long first = count > 0 ? arena.newEdges(size) : -1;
+            if (first < 0) {
+                arena.changeState(node, NodeArena.EXPANDING, NodeArena.LEAF);
+                return;
+            }
+            for (int i=0; i<size; i++) {
+                arena.setEdge(first + i, board.toCanonical((int)order[i]), -1);
+            }
+            arena.setEdges(node, first, size, count, 0);
+
+            long edge = widen(node, false);
+            if (edge >= 0) {
+                descend(edge);
+            }
+        }
+
+        /**
+         * Works out the moves from a node in prior order into order[]. Dead
+         * and captured cells are left out, and a node whose filled-in
+         * position is already connected is proven instead. Near the root the
+         * moves may be narrowed further, or the node proven, by virtual
+         * connections.
+         *
+         * @return The number of moves, or 0 if the node was proven
+         */
+        private int generateMoves(int node) {
+            boolean root = node == tree.root;
+            int count = inferior.analyse(board, moves);
+            int winner = inferior.getWinner();
+            if (winner != Constants.EMPTY && !root) {
+                arena.setProof(node, winner == toMove ? NodeArena.PROVEN_LOSS : NodeArena.PROVEN_WIN);
+                return 0;
+            }
+            if (count == 0) {
+                // The root is decided with every cell filled in, so any
+                // move will do.
+                count = board.getEmptyCount();
+                for (int i=0; i<count; i++) {
+                    moves[i] = board.getEmpty(i);
+                }
+            } else if (depth <= VC_DEPTH && winner == Constants.EMPTY) {
+                count = narrow(node, root, count);
+                if (count == 0) {
+                    return 0;
+                }
+            }
+
+            if (depth > ORDER_DEPTH) {
+                inheritOrder(count);
+            } else {
+                orderMoves(count);
+            }
             return count;
         }
 
-        if (player==1 && count+(6-l.y)>=minLen) {
-            return 999;
-        } else if (player==2 && count+(6-l.x)>=minLen) {
-            return 999;
+        /**
+         * Checks a node's filled-in position for virtual connections between
+         * either player's edges. A position either player has already won is
+         * proven, except at the root, which still needs a move. A player to
+         * move who has won keeps to the winning connection, and one facing a
+         * threat keeps to the cells that stop it, since every other move
+         * loses.
+         *
+         * @param node The node being expanded
+         * @param root true if the node is the root
+         * @param count The number of moves in moves[]
+         * @return The number of moves left in moves[], or 0 if the node was
+         *     proven
+         */
+        private int narrow(int node, boolean root, int count) {
+            Position filled = inferior.getFilled();
+            connections.compute(filled, toMove);
+            if (connections.isWon() || connections.getWinningMove() >= 0) {
+                if (!root) {
+                    arena.setProof(node, NodeArena.PROVEN_LOSS);
+                    return 0;
+                }
+                int key = connections.getWinningMove();
+                if (key >= 0) {
+                    moves[0] = key;
+                    return 1;
+                }
+                int n = connections.getCarrier(region);
+                return n > 0 ? keep(n) : count;
+            }
+
+            connections.compute(filled, other(toMove));
+            int n = connections.getMustPlay(region);
+            if (n == 0 && !root) {
+                arena.setProof(node, NodeArena.PROVEN_WIN);
+                return 0;
+            }
+            return n > 0 ? keep(n) : count;
         }
 
-        ArrayList<Location> adj = l.getAdjacentLocations();
-        ArrayList<Bridge> bridges = l.getBridges();
-        ArrayList<Location> v = Utils.ALCopy(visited);
-        v.add(new Location(l.x, l.y));
-        int min = 999;
+        /**
+         * Makes the cells in region[] the moves. They are all empty on the
+         * filled-in position, so none of them is dead or captured.
+         */
+        private int keep(int n) {
+            System.arraycopy(region, 0, moves, 0, n);
+            return n;
+        }
 
-        for (int i=0; i<bridges.size(); i++) {
-            Bridge b = bridges.get(i);
-            boolean canUseBridge = board[b.mids.get(0).y][b.mids.get(0).x]==0 && 
-                                 board[b.mids.get(1).y][b.mids.get(1).x]==0;
-            if (canUseBridge && !Utils.ALContains(v, b.l1) && 
-                (board[b.l1.y][b.l1.x]==player || board[b.l1.y][b.l1.x]==0)) {
-                int val = calcN(board, player, b.l1, v, count);
-                if (val<min) {
-                    min=val;
+        /**
+         * Sorts the moves in moves[] into order[] so that cells on the
+         * shortest connections of either player come first.
+         */
+        private void orderMoves(int count) {
+            PathEvaluator.connectionCosts(board, toMove, ownCosts);
+            PathEvaluator.connectionCosts(board, other(toMove), oppCosts);
+            evaluatorCalls += 2;
+            for (int i=0; i<count; i++) {
+                int cell = moves[i];
+                order[i] = ((long)(ownCosts[cell] + oppCosts[cell]) << 32) | cell;
+            }
+            Arrays.sort(order, 0, count);
+        }
+
+        /**
+         * Puts the moves in moves[] into order[] in the order the parent's
+         * edges have them. The parent only has edges for the moves it has
+         * been widened far enough to need, so the rest follow in the order
+         * of the grandparent's edges, and so on up to the root, and any that
+         * no node on the path has after those. The parent's position is one
+         * stone short of this one, so its order is nearly as good and costs
+         * nothing to work out again.
+         */
+        private void inheritOrder(int count) {
+            stamp++;
+            for (int i=0; i<count; i++) {
+                seen[moves[i]] = stamp;
+            }
+
+            int n = 0;
+            for (int i=depth-2; i>=0 && n<count; i--) {
+                long edges = arena.getEdges(path[i]);
+                long first = NodeArena.firstEdge(edges);
+                long end = first + NodeArena.edgeCount(edges);
+                for (long edge=first; edge<end; edge++) {
+                    int move = arena.getEdgeMove(edge);
+                    int cell = flipped[i] ? board.rotate(move) : move;
+                    if (seen[cell] == stamp) {
+                        seen[cell] = 0;
+                        order[n++] = cell;
+                    }
+                }
+            }
+            for (int i=0; i<count; i++) {
+                if (seen[moves[i]] == stamp) {
+                    order[n++] = moves[i];
                 }
             }
         }
 
-        for (int i=0; i<adj.size(); i++) {
-            Location loc = adj.get(i);
-            if (!Utils.ALContains(v, loc) && (board[loc.y][loc.x]==player || board[loc.y][loc.x]==0)) {
-                int val = 999;
-                if (board[loc.y][loc.x]==player) {
-                    val = calcN(board, player, loc, v, count);
-                } else {
-                    val = calcN(board, player, loc, v, count+1);
+        /**
+         * Records a batch's results on every node of the descent, taking back
+         * the virtual losses charged on the way down in the same atomic add,
+         * and on the all-moves-as-first statistics of the nodes' edges. Proofs
+         * are carried up the path as far as they go.
+         *
+         * @param halfWins The half points won by the player who moved into
+         *     the leaf
+         */
+        private void backpropagate(int halfWins) {
+            int player = toMove;
+            for (int i=depth-1; i>=0; i--) {
+                long stats = arena.addStats(path[i], playouts - (i == 0 ? 0 : virtualLoss), halfWins);
+                saturated |= NodeArena.visits(stats) >= NodeArena.MAX_VISITS;
+                halfWins = 2 * playouts - halfWins;
+                updateAmaf(i, player, halfWins);
+                player = other(player);
+                if (i > 0) {
+                    prove(path[i - 1], arena.getProof(path[i]));
+                }
+            }
+        }
+
+        /**
+         * Works out what a child's proof says about its parent. One winning
+         * child proves the parent lost for the player who moved into it, and
+         * the parent is won for them once every move from it is a proven loss.
+         *
+         * @param parent The parent node
+         * @param childProof The proof of one of its children
+         */
+        private void prove(int parent, int childProof) {
+            if (childProof == NodeArena.UNPROVEN || arena.getProof(parent) != NodeArena.UNPROVEN) {
+                return;
+            }
+            if (childProof == NodeArena.PROVEN_WIN) {
+                arena.setProof(parent, NodeArena.PROVEN_LOSS);
+                return;
+            }
+
+            if (arena.getState(parent) != NodeArena.EXPANDED) {
+                return;
+            }
+            long edges = arena.getEdges(parent);
+            int count = NodeArena.edgeCount(edges);
+            if (count < arena.getMoveCount(parent) || arena.getWidened(parent) < count) {
+                return;
+            }
+            long first = NodeArena.firstEdge(edges);
+            for (long edge=first; edge<first+count; edge++) {
+                int child = arena.getEdgeTarget(edge);
+                if (child < 0 || arena.getProof(child) != NodeArena.PROVEN_LOSS) {
+                    return;
                 }
-                if (val<min) {
-                    min=val;
+            }
+            arena.setProof(parent, NodeArena.PROVEN_WIN);
+        }
+
+        /**
+         * Adds a batch to the all-moves-as-first statistics of the edges of
+         * the node at a given depth. Moves made further down the descent were
+         * made in every game of the batch, and moves made in the playouts
+         * count as often as the player to move made them.
+         *
+         * @param i The index of the node in the path
+         * @param player The player to move at the node
+         * @param halfWins The player's result over the batch, in half points
+         */
+        private void updateAmaf(int i, int player, int halfWins) {
+            int node = path[i];
+            if (arena.getState(node) != NodeArena.EXPANDED) {
+                return;
+            }
+            long edges = arena.getEdges(node);
+            long first = NodeArena.firstEdge(edges);
+            long end = first + NodeArena.edgeCount(edges);
+            for (long edge=first; edge<end; edge++) {
+                int move = arena.getEdgeMove(edge);
+                int cell = flipped[i] ? board.rotate(move) : move;
+                if (board.isEmpty(cell)) {
+                    int visits = playout.getAmafVisits(player, cell);
+                    if (visits > 0) {
+                        arena.addAmaf(edge, visits, playout.getAmafWins(player, cell));
+                    }
+                } else if (takenAt[cell] >= i && board.get(cell) == player) {
+                    arena.addAmaf(edge, playouts, halfWins);
                 }
             }
         }
-        return min;
     }
 
-    public double calcVal(int[][] board) {
-        int opp = aiplayer==1 ? 2 : 1;
-        minLen = 49;
-        double maxno = 999;
+    @Override
+    public Location getPlayLocation(Position board, Location last) {
+        if (!begun) {
+            running = ++searchCount;
+        }
+        begun = false;
+        long start = System.nanoTime();
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        lastPlayouts = 0;
+        lastVisits = 0;
+        lastWinRate = -1;
 
-        for (int i=0; i<board.length; i++) {
-            if (board[i][0]!=opp) {
-                int initCountO = board[i][0]==opp ? 0 : 1;
-                Location oLoc = aiplayer==1 ? new Location(0, i) : new Location(i, 0);
-                
-                double no = (double)calcN(board, opp, oLoc, new ArrayList<Location>(), initCountO);
-                minLen = 49;
-                if (no<maxno) {
-                    maxno = no;
-                }
+        stopPondering();
+
+        if (book != null && book.getSize() == board.getSize()) {
+            int move = book.lookup(board, aiplayer);
+            if (move >= 0 && board.isEmpty(move)) {
+                return new Location(board.x(move), board.y(move));
             }
         }
-        return maxno;
+
+        if (last == null || last.x == -1) {
+            return new Location(board.getSize()/2, board.getSize()/2);
+        }
+
+        int forced = getForcedMove(board);
+        if (forced >= 0) {
+            return new Location(board.x(forced), board.y(forced));
+        }
+
+        int[] visits = new int[board.getCellCount()];
+        int[] proofs = new int[board.getCellCount()];
+        double[] wins = new double[board.getCellCount()];
+        boolean searched = false;
+        boolean finished = true;
+
+        int count = pool == null || sharedTree ? 1 : threads;
+        if (trees == null || trees.length != count) {
+            trees = new Tree[count];
+        }
+        int budget = getNodeBudget(board.getCellCount());
+        for (int i=0; i<count; i++) {
+            if (trees[i] == null || trees[i].rootBoard.getSize() != board.getSize()
+                    || trees[i].arena.getNodeCapacity() != budget || trees[i].offHeap != offHeap) {
+                checkMemory(count, budget, board.getCellCount(), offHeap);
+                trees[i] = new Tree(board.getSize(), budget, offHeap);
+            } else if (!forgotten && reuse(trees[i], board, aiplayer)) {
+                continue;
+            }
+            trees[i].reset(board, aiplayer);
+        }
+        forgotten = false;
+
+        // The time limit starts once the trees are ready, so that allocating
+        // a fresh tree does not eat into the search.
+        long deadline = System.currentTimeMillis() + timeLimit;
+        long hits = 0;
+        long misses = 0;
+        long replacements = 0;
+        for (Tree tree : trees) {
+            hits -= tree.table.getHits();
+            misses -= tree.table.getMisses();
+            replacements -= tree.table.getReplacements();
+        }
+
+        ArrayList<Searcher> searchers = new ArrayList<>();
+        try {
+            search(trees, deadline, false, searchers);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished = false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
+
+        for (Tree tree : trees) {
+            searched |= addRootStats(tree, visits, wins, proofs);
+        }
+        long iterations = 0;
+        int maxDepth = 0;
+        long evaluatorCalls = 0;
+        for (Searcher searcher : searchers) {
+            lastPlayouts += searcher.games;
+            iterations += searcher.iterations;
+            maxDepth = Math.max(maxDepth, searcher.maxDepth);
+            evaluatorCalls += searcher.evaluatorCalls;
+        }
+
+        // Trees that are still being searched cannot be handed to the next
+        // search.
+        Tree[] searchedTrees = trees;
+        if (!finished || !searched) {
+            trees = null;
+        }
+
+        if (!searched) {
+            // Every searcher gives its root a child, so only an interrupted
+            // search gets here, and its move is thrown away.
+            int cell = board.getEmpty(0);
+            return new Location(board.x(cell), board.y(cell));
+        }
+
+        // A proven win beats everything, and a proven loss is only played
+        // when every move loses; otherwise the most searched move is best.
+        int best = -1;
+        for (int cell=0; cell<visits.length; cell++) {
+            if (!board.isEmpty(cell)) {
+                continue;
+            }
+            if (best == -1 || rank(proofs[cell]) > rank(proofs[best])
+                    || rank(proofs[cell]) == rank(proofs[best]) && visits[cell] > visits[best]) {
+                best = cell;
+            }
+        }
+
+        // Root children can be shared by moves that are the same after
+        // turning the board round, so take the share of the root's own
+        // visits rather than the children's total.
+        long rootVisits = 0;
+        long nodes = 0;
+        for (Tree tree : searchedTrees) {
+            rootVisits += NodeArena.visits(tree.arena.getStats(tree.root));
+            nodes += tree.arena.getNodeCount();
+            hits += tree.table.getHits();
+            misses += tree.table.getMisses();
+            replacements += tree.table.getReplacements();
+        }
+        double bestShare = Math.min(1, (double)visits[best] / Math.max(rootVisits, 1));
+        lastVisits = visits[best];
+        lastWinRate = visits[best] > 0 ? wins[best] / visits[best] : -1;
+        SearchStats.get().record(iterations, lastPlayouts, System.nanoTime() - start, nodes, maxDepth,
+            evaluatorCalls, hits, misses, replacements, bestShare);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.x = board.x(best);
+            event.y = board.y(best);
+            event.player = aiplayer;
+            event.threads = threads;
+            event.iterations = iterations;
+            event.playouts = lastPlayouts;
+            event.nodes = nodes;
+            event.maxDepth = maxDepth;
+            event.rootVisits = rootVisits;
+            event.bestVisitShare = bestShare;
+            event.tableHits = hits;
+            event.tableMisses = misses;
+            event.tableReplacements = replacements;
+            event.commit();
+        }
+
+        if (pondering && trees != null) {
+            startPondering(board, best);
+        }
+        return new Location(board.x(best), board.y(best));
     }
 
-    private ArrayList<Location> getPossibleMoves(int[][] board) {
-        ArrayList<Location> moves = new ArrayList<>();
-        for (int y=0; y<board.length; y++) {
-            for (int x=0; x<board[y].length; x++) {
-                if (board[y][x] == Constants.EMPTY) {
-                    moves.add(new Location(x, y));
+    /**
+     * Searches the trees until the deadline, or until the search is stopped
+     * or decided. A searcher whose shared tree fills up stops, and once
+     * every searcher on that tree has, the tree is pruned and searched
+     * again.
+     *
+     * @param searchers Receives every searcher that ran, for their
+     *     telemetry
+     */
+    private void search(Tree[] trees, long deadline, boolean ponder, ArrayList<Searcher> searchers)
+            throws InterruptedException, ExecutionException {
+        ArrayList<Searcher> round = new ArrayList<>();
+        if (pool == null) {
+            round.add(new Searcher(trees[0], 0, deadline, ponder));
+        } else {
+            for (int i=0; i<threads; i++) {
+                round.add(new Searcher(trees[sharedTree ? 0 : i], sharedTree ? VIRTUAL_LOSS : 0, deadline, ponder));
+            }
+        }
+
+        while (!round.isEmpty()) {
+            searchers.addAll(round);
+            if (pool == null) {
+                round.get(0).run();
+            } else {
+                ArrayList<Future<?>> results = new ArrayList<>();
+                for (Searcher searcher : round) {
+                    results.add(pool.submit(searcher));
+                }
+                for (Future<?> result : results) {
+                    result.get();
+                }
+            }
+
+            // Threads sharing a tree all find it full, but it is only
+            // pruned once.
+            ArrayList<Searcher> next = new ArrayList<>();
+            for (Searcher searcher : round) {
+                if (searcher.full) {
+                    if (searcher.tree.arena == searcher.arena) {
+                        prune(searcher.tree);
+                    }
+                    next.add(new Searcher(searcher.tree, searcher.virtualLoss, deadline, ponder));
                 }
             }
+            round = next;
         }
-        return moves;
     }
 
-    private void makeMove(int[][] board, Location move, int player) {
-        board[move.y][move.x] = player;
+    /**
+     * Finds a move that needs no search: the only empty cell, a cell that
+     * wins at once, or the only cell that stops the opponent winning at once.
+     *
+     * @return The cell, or -1 if the position needs searching
+     */
+    private int getForcedMove(Position board) {
+        if (board.getEmptyCount() == 1) {
+            return board.getEmpty(0);
+        }
+
+        Connectivity links = new Connectivity(board.getSize());
+        Connectivity trial = new Connectivity(board.getSize());
+        links.reset(board);
+        int block = -1;
+        int threats = 0;
+        for (int i=0; i<board.getEmptyCount(); i++) {
+            int cell = board.getEmpty(i);
+            trial.copyFrom(links);
+            trial.place(cell, aiplayer);
+            if (trial.hasConnected(aiplayer)) {
+                return cell;
+            }
+            trial.copyFrom(links);
+            trial.place(cell, other(aiplayer));
+            if (trial.hasConnected(other(aiplayer))) {
+                block = cell;
+                threats++;
+            }
+        }
+        return threats == 1 ? block : -1;
     }
 
-    private Node select(Node node) {
-        while (!getPossibleMoves(node.board).isEmpty() && !node.children.isEmpty()) {
-            node = node.getBestChild();
-            if (node == null) break;
+    /**
+     * Moves the trees on past our move and searches them in the background
+     * until the next search stops it or the pondering time runs out.
+     *
+     * @param board The position we moved in
+     * @param move The move we played
+     */
+    private void startPondering(Position board, int move) {
+        if (ponderer == null) {
+            ponderer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "MCAI ponder");
+                t.setDaemon(true);
+                return t;
+            });
         }
-        return node;
+
+        Position after = new Position(board);
+        after.play(move, aiplayer);
+        long deadline = System.currentTimeMillis() + ponderTime;
+        Tree[] ponderTrees = trees;
+        int opponent = other(aiplayer);
+
+        ponderTask = ponderer.submit(() -> {
+            for (Tree tree : ponderTrees) {
+                if (!reuse(tree, after, opponent)) {
+                    tree.reset(after, opponent);
+                }
+            }
+
+            search(ponderTrees, deadline, true, new ArrayList<>());
+            return null;
+        });
     }
 
-    private Node expand(Node node) {
-        ArrayList<Location> moves = getPossibleMoves(node.board);
-        for (Location move : moves) {
-            int[][] newBoard = Board.BoardCopy(node.board);
-            makeMove(newBoard, move, node.playerToMove);
-            Node child = new Node(
-                newBoard, 
-                move, 
-                node, 
-                node.playerToMove == Constants.WHITE ? Constants.BLACK : Constants.WHITE
-            );
-            node.children.add(child);
+    /**
+     * Stops any pondering and waits for it to finish, so the trees can be
+     * searched again. If pondering failed, its trees are dropped.
+     */
+    private void stopPondering() {
+        if (ponderTask == null) {
+            return;
+        }
+
+        ponderStop = true;
+        try {
+            ponderTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            trees = null;
+        } catch (ExecutionException e) {
+            trees = null;
         }
-        return !node.children.isEmpty() ? node.children.get(0) : node;
+        ponderStop = false;
+        ponderTask = null;
     }
 
-    private double simulate(Node node) {
-        int[][] simBoard = Board.BoardCopy(node.board);
-        int currentPlayer = node.playerToMove;
-        
-        while (Board.hasEmpty(simBoard)) {
-            ArrayList<Location> moves = getPossibleMoves(simBoard);
-            if (moves.isEmpty()) break;
-            
-            Location move = moves.get((int)(Math.random() * moves.size()));
-            makeMove(simBoard, move, currentPlayer);
-            
-            double val = calcVal(simBoard);
-            if (val > Math.pow(simBoard.length, 2)) {
-                return currentPlayer == aiplayer ? 0 : 1;
+    /**
+     * Moves a tree on to a later position, by following the stones that
+     * have been played since its root down through the tree. The node
+     * reached, and everything below it, is copied into the tree's spare
+     * arena, and the rest of the old tree is dropped in one go.
+     *
+     * @param board The position to move on to
+     * @param playerToMove The player to move there
+     * @return true if the tree now starts from the board, false if it does
+     *     not lead there and must be reset
+     */
+    private boolean reuse(Tree tree, Position board, int playerToMove) {
+        Position b = new Position(tree.rootBoard);
+        for (int cell=0; cell<b.getCellCount(); cell++) {
+            if (!b.isEmpty(cell) && b.get(cell) != board.get(cell)) {
+                return false;
             }
-            
-            currentPlayer = (currentPlayer == Constants.WHITE) ? Constants.BLACK : Constants.WHITE;
         }
-        return 0.5;
+
+        // Any order of the new stones leads to the same node, so take
+        // whichever of the player's stones the tree has a child for.
+        int node = tree.root;
+        int player = tree.toMove;
+        while (!b.equals(board)) {
+            int next = -1;
+            int move = -1;
+            for (int cell=0; cell<b.getCellCount() && next<0; cell++) {
+                if (b.isEmpty(cell) && board.get(cell) == player) {
+                    next = findChild(tree.arena, node, b, cell);
+                    move = cell;
+                }
+            }
+            if (next < 0) {
+                return false;
+            }
+            b.play(move, player);
+            node = next;
+            player = other(player);
+        }
+
+        if (player != playerToMove) {
+            return false;
+        }
+
+        NodeArena from = tree.arena;
+        NodeArena to = getSpare(tree);
+        to.reset();
+        tree.table.clear();
+        clearCopies(from);
+
+        tree.root = copy(from, to, tree.table, node, b, player, 0);
+        tree.rootBoard.copyFrom(board);
+        tree.rootLinks.reset(board);
+        tree.toMove = playerToMove;
+        tree.arena = to;
+        tree.spare = from;
+        return true;
     }
 
-    private void backpropagate(Node node, double result) {
-        while (node != null) {
-            node.visits++;
-            node.wins += result;
-            node = node.parent;
-            result = 1 - result;
+    /**
+     * Makes room in a full tree by copying it into the spare arena with its
+     * least visited subtrees collapsed into leaves. Collapsed nodes keep
+     * their visits, wins and proofs, and are expanded again if the search
+     * comes back to them. Every node with fewer visits than a threshold is
+     * collapsed, and the threshold is raised until the tree fits in half
+     * the arena, so that the search has room to grow again.
+     */
+    static void prune(Tree tree) {
+        NodeArena from = tree.arena;
+        NodeArena to = getSpare(tree);
+
+        // Count the nodes by the power of two below their visits, so that no
+        // scratch space grows with the tree. A node keeps its subtree if it
+        // is among the most visited quarter, rounded to a power of two,
+        // which usually leaves room for the leaves below them as well.
+        int[] counts = new int[33];
+        for (int n=0; n<from.getNodeCount(); n++) {
+            counts[32 - Integer.numberOfLeadingZeros(NodeArena.visits(from.getStats(n)))]++;
+        }
+        int bits = counts.length - 1;
+        for (int kept=counts[bits]; bits > 1 && kept + counts[bits - 1] <= from.getNodeCapacity() / 4; ) {
+            kept += counts[--bits];
         }
+        long minVisits = 1L << (bits - 1);
+
+        int rootVisits = NodeArena.visits(from.getStats(tree.root));
+        int root;
+        do {
+            to.reset();
+            tree.table.clear();
+            clearCopies(from);
+            root = copy(from, to, tree.table, tree.root, new Position(tree.rootBoard), tree.toMove, (int)minVisits);
+            minVisits *= 2;
+        } while ((to.getNodeCount() > to.getNodeCapacity() / 2 || to.getEdgesInUse() > to.getEdgeCapacity() / 2)
+                && minVisits <= rootVisits);
+
+        tree.root = root;
+        tree.arena = to;
+        tree.spare = from;
     }
 
-    @Override
-    public Location getPlayLocation(int[][] board, Location last) {
-        long startTime = System.currentTimeMillis();
-        lastPlayed = last;
+    /**
+     * Gets a tree's spare arena, allocating it the first time.
+     */
+    private static NodeArena getSpare(Tree tree) {
+        if (tree.spare == null) {
+            tree.spare = newArena(tree.arena.getNodeCapacity(), tree.arena.getEdgeCapacity(), tree.offHeap);
+        }
+        return tree.spare;
+    }
 
-        if (last == null || last.x == -1) {
-            return new Location(board.length/2, board.length/2);
+    private static NodeArena newArena(int nodes, long edges, boolean offHeap) {
+        if (offHeap) {
+            return new OffHeapNodeArena(nodes, edges);
+        }
+        return new HeapNodeArena(nodes, edges);
+    }
+
+    /**
+     * Gets the number of edges to go with a number of nodes on a board.
+     */
+    private static long edgesFor(int nodes, int cells) {
+        // On top of the edges for the nodes, there is room for the root and
+        // each of its children to get an edge for every move.
+        return (long)nodes * EDGES_PER_NODE + (long)cells * cells;
+    }
+
+    /**
+     * Checks that the trees fit in memory before any of them is allocated,
+     * counting the second arena each one needs once it is reused or pruned.
+     * A budget that does not fit would otherwise fail part way through a
+     * game, or run the JVM out of memory.
+     *
+     * @throws IllegalStateException if the trees need more memory than
+     *     the JVM allows
+     */
+    private static void checkMemory(int trees, int nodes, int cells, boolean offHeap) {
+        long bytes = 2L * trees * (nodes * (long)NodeArena.NODE_BYTES + edgesFor(nodes, cells) * NodeArena.EDGE_BYTES);
+        long limit = offHeap ? getMaxDirectMemory() : Runtime.getRuntime().maxMemory();
+        if (bytes > limit) {
+            throw new IllegalStateException(String.format(
+                "a node budget of %d with %d search trees needs %dMB %s, but only %dMB is allowed;"
+                + " lower the node budget or raise %s",
+                nodes, trees, bytes >> 20, offHeap ? "of direct memory" : "of heap", limit >> 20,
+                offHeap ? "-XX:MaxDirectMemorySize" : "-Xmx"));
+        }
+        if (!offHeap && edgesFor(nodes, cells) > HeapNodeArena.MAX_EDGES) {
+            throw new IllegalStateException("a tree of " + nodes + " nodes has too many edges for the heap;"
+                + " lower the node budget or keep the nodes off the heap");
+        }
+    }
+
+    /**
+     * Gets the most direct memory the JVM allows, which is the heap limit
+     * unless -XX:MaxDirectMemorySize says otherwise.
+     */
+    private static long getMaxDirectMemory() {
+        try {
+            HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            long max = Long.parseLong(hotSpot.getVMOption("MaxDirectMemorySize").getValue());
+            if (max > 0) {
+                return max;
+            }
+        } catch (RuntimeException e) {
+            // Not a HotSpot JVM, so fall back on its usual default.
+        }
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    /**
+     * Gets the most nodes each tree may hold on a board: the budget if one
+     * is set, or else as many as fit in ARENA_BYTES with their edges.
+     */
+    private int getNodeBudget(int cells) {
+        if (nodeBudget > 0) {
+            return nodeBudget;
         }
+        long bytes = ARENA_BYTES - edgesFor(0, cells) * NodeArena.EDGE_BYTES;
+        return (int)Math.max(MIN_NODE_BUDGET, bytes / (NodeArena.NODE_BYTES + EDGES_PER_NODE * NodeArena.EDGE_BYTES));
+    }
 
-        Node root = new Node(board, last, null, aiplayer);
-        
-        while (System.currentTimeMillis() - startTime < SIMULATION_TIME) {
-            Node selected = select(root);
-            Node expanded = expand(selected);
-            double result = simulate(expanded);
-            backpropagate(expanded, result);
+    /**
+     * Marks every node of an arena as not yet copied.
+     */
+    private static void clearCopies(NodeArena arena) {
+        for (int n=0; n<arena.getNodeCount(); n++) {
+            arena.setCopy(n, -1);
         }
+    }
 
-        Node bestChild = null;
-        int maxVisits = -1;
-        
-        for (Node child : root.children) {
-            if (child.visits > maxVisits) {
-                maxVisits = child.visits;
-                bestChild = child;
+    /**
+     * Gets the child a node reaches by playing a move on the given board.
+     *
+     * @return The child's index, or -1 if the node has no such child
+     */
+    private static int findChild(NodeArena arena, int node, Position board, int move) {
+        if (arena.getState(node) != NodeArena.EXPANDED) {
+            return -1;
+        }
+
+        int m = board.toCanonical(move);
+        long edges = arena.getEdges(node);
+        long first = NodeArena.firstEdge(edges);
+        for (long edge=first; edge<first+NodeArena.edgeCount(edges); edge++) {
+            if (arena.getEdgeMove(edge) == m) {
+                return arena.getEdgeTarget(edge);
             }
         }
+        return -1;
+    }
+
+    /**
+     * Copies a node and everything below it into another arena, entering
+     * each copy in the transposition table. Shared nodes are only copied
+     * once, so every node must have its copy cleared first. Below the top
+     * node, nodes with fewer than minVisits visits are copied as leaves,
+     * without their children.
+     *
+     * An edge that was widened into while the arena was full has no target.
+     * It is moved back after the edges that do, so that it counts as untried
+     * and is widened into again in the copy.
+     *
+     * @param board The node's position, which is restored before returning
+     * @param minVisits The fewest visits a node needs to keep its children
+     * @return The index of the copy
+     */
+    private static int copy(NodeArena from, NodeArena to, TranspositionTable table,
+                            int node, Position board, int toMove, int minVisits) {
+        if (from.getCopy(node) >= 0) {
+            return from.getCopy(node);
+        }
 
-        if (bestChild == null) {
-            ArrayList<Location> adjacent = last.getAdjacentLocations();
-            for (Location loc : adjacent) {
-                if (loc.x >= 0 && loc.x < board.length && 
-                    loc.y >= 0 && loc.y < board.length && 
-                    board[loc.y][loc.x] == Constants.EMPTY) {
-                    return loc;
+        int n = to.newNode();
+        from.setCopy(node, n);
+        to.setStats(n, from.getStats(node));
+        if (from.getProof(node) != NodeArena.UNPROVEN) {
+            to.setProof(n, from.getProof(node));
+        }
+        table.put(board.getKey(toMove), n);
+
+        // The top node is the first one copied, and always keeps its children.
+        if (from.getState(node) == NodeArena.EXPANDED
+                && (n == 0 || NodeArena.visits(from.getStats(node)) >= minVisits)) {
+            long edges = from.getEdges(node);
+            long first = NodeArena.firstEdge(edges);
+            int count = NodeArena.edgeCount(edges);
+            long e = to.newEdges(count);
+            int wide = 0;
+            for (int i=0; i<count; i++) {
+                int target = from.getEdgeTarget(first + i);
+                if (target >= 0) {
+                    int move = from.getEdgeMove(first + i);
+                    int cell = board.toCanonical(move);
+                    board.play(cell, toMove);
+                    int child = copy(from, to, table, target, board, other(toMove), minVisits);
+                    board.undo(cell);
+                    to.setEdge(e + wide, move, child);
+                    to.setAmaf(e + wide, from.getAmaf(first + i));
+                    wide++;
                 }
             }
-            return getPossibleMoves(board).get(0);
+            long untried = e + wide;
+            for (int i=0; i<count; i++) {
+                if (from.getEdgeTarget(first + i) < 0) {
+                    to.setEdge(untried, from.getEdgeMove(first + i), -1);
+                    to.setAmaf(untried++, from.getAmaf(first + i));
+                }
+            }
+            to.setEdges(n, e, count, from.getMoveCount(node), wide);
         }
+        return n;
+    }
 
-        return bestChild.move;
+    private static int rank(int proof) {
+        return proof == NodeArena.PROVEN_WIN ? 2 : proof == NodeArena.PROVEN_LOSS ? 0 : 1;
+    }
+
+    /**
+     * Adds the visit and win counts of a root's children into per-cell
+     * totals, and notes which of them are proven.
+     *
+     * @return true if the root had any children
+     */
+    private boolean addRootStats(Tree tree, int[] visits, double[] wins, int[] proofs) {
+        NodeArena arena = tree.arena;
+        if (arena.getState(tree.root) != NodeArena.EXPANDED) {
+            return false;
+        }
+
+        long edges = arena.getEdges(tree.root);
+        long first = NodeArena.firstEdge(edges);
+        int count = NodeArena.edgeCount(edges);
+        boolean any = false;
+        for (long edge=first; edge<first+count; edge++) {
+            int child = arena.getEdgeTarget(edge);
+            if (child >= 0) {
+                int cell = tree.rootBoard.toCanonical(arena.getEdgeMove(edge));
+                long stats = arena.getStats(child);
+                visits[cell] += NodeArena.visits(stats);
+                wins[cell] += NodeArena.wins(stats);
+                if (arena.getProof(child) != NodeArena.UNPROVEN) {
+                    proofs[cell] = arena.getProof(child);
+                }
+                any = true;
+            }
+        }
+        return any;
     }
 }
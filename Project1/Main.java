@@ -2,6 +2,8 @@
  * BSD License
  */
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import javax.swing.JFrame;
 
 /**
@@ -13,14 +15,26 @@ public class Main {
 	/**
 	 * Main method. Creates a window.
 	 *
-	 * @param args the command line arguments
+	 * @param args the command line arguments. The first, if given, is the
+	 * 	board size, and the second an opening book for the AI.
 	 */
 	public static void main(String[] args) {
+		int size=args.length>0 ? Position.checkSize(Integer.parseInt(args[0])) : 7;
+
+		OpeningBook book=null;
+		if (args.length>1) {
+			try {
+				book=OpeningBook.open(Paths.get(args[1]));
+			} catch (IOException e) {
+				System.err.println("Playing without an opening book: "+e.getMessage());
+			}
+		}
+
 		JFrame frame=new JFrame("Hex");
 		frame.setSize(400, 500);
 		frame.setLocation(100, 50);
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-		frame.setContentPane(new Panel());
+		frame.setContentPane(new Panel(size, book));
 		frame.setVisible(true);
 	}
 }
\ No newline at end of file
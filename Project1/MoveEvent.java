@@ -0,0 +1,64 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+
+/**
+ * A JFR event for each move the search chooses, with how big the tree got
+ * 	and how sure the search was of its choice.
+ *
+ * @author agent
+ */
+@Name("hex.Move")
+@Label("Move")
+@Category({"Hex", "Search"})
+@Description("A move chosen by the search")
+public class MoveEvent extends jdk.jfr.Event {
+	@Label("X")
+	public int x;
+
+	@Label("Y")
+	public int y;
+
+	@Label("Player")
+	public int player;
+
+	@Label("Threads")
+	public int threads;
+
+	@Label("Iterations")
+	public long iterations;
+
+	@Label("Playouts")
+	public long playouts;
+
+	@Label("Nodes")
+	public long nodes;
+
+	@Label("Max Depth")
+	public int maxDepth;
+
+	@Label("Root Visits")
+	public long rootVisits;
+
+	@Label("Table Hits")
+	@Description("Transposition table lookups that found a node")
+	public long tableHits;
+
+	@Label("Table Misses")
+	@Description("Transposition table lookups that found nothing")
+	public long tableMisses;
+
+	@Label("Table Replacements")
+	@Description("Transposition table entries pushed out of a full bucket")
+	public long tableReplacements;
+
+	@Label("Best Move Visit Share")
+	@Percentage
+	public double bestVisitShare;
+}
@@ -0,0 +1,449 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pooled storage for a search tree. Nodes and the edges between them are
+ * 	plain indices into fixed-size records that are allocated once and then
+ * 	reused, so growing the tree creates no garbage and clearing it is a
+ * 	matter of resetting two counters. Where the records live is up to the
+ * 	subclass: HeapNodeArena keeps them in primitive arrays, and
+ * 	OffHeapNodeArena in direct memory outside the heap.
+ *
+ * A node has its statistics, an expansion state, its number of moves and
+ * 	the block of its edges. The edges of a block are stored side by side
+ * 	and each holds the move that was played and the index of the node it
+ * 	leads to. Nodes are numbered with ints and edges with longs, since a
+ * 	large tree can have more than 2^31 edges. Since the search
+ * 	shares nodes between transpositions, the edges rather than the nodes
+ * 	carry the moves, and a node can be the target of many edges.
+ *
+ * A node only gets edges for the moves it is likely to be widened into.
+ * 	Expanding it lays out a small block for its first moves in prior order,
+ * 	and once every edge of the block has been widened into it can be given
+ * 	a bigger block, holding the same edges followed by its next moves. The
+ * 	old block is left unused until the tree is next copied. An edge only
+ * 	gets a target node when the search widens the node to include it, so
+ * 	untried moves in the block cost an edge each and no node. The number of
+ * 	edges that have been widened into is kept for each node, and can run
+ * 	one past the block while a bigger one is being laid out.
+ *
+ * The first edge and the size of a node's block are packed into one long,
+ * 	so that a thread always sees the two of them together.
+ *
+ * A node can also be proven: a win or a loss for the player who moved into
+ * 	it, whatever is played from then on. Proofs are found by the search
+ * 	and never undone.
+ *
+ * A node's statistics are its visits in the high 32 bits and its wins,
+ * 	counted in half points, in the low 32 bits, so that both change in a
+ * 	single atomic add and several threads can update one tree. Half
+ * 	points fill the low half once a node has 2^31 visits, and carry into
+ * 	the visits, so the search stops once any node reaches MAX_VISITS.
+ * 	That leaves room for the visits of every thread's batch still on its
+ * 	way up the tree.
+ *
+ * Each edge also has all-moves-as-first statistics in the same packed form:
+ * 	how often its move was made by the player to move anywhere later in a
+ * 	playout through its node, and how often that player then won. Every
+ * 	edge has them, whether or not it has been widened into.
+ *
+ * @author agent
+ */
+public abstract class NodeArena {
+	// Node states. Only the thread that moves a node from LEAF to EXPANDING
+	// 	may give it edges.
+	public static final int LEAF=0;
+	public static final int EXPANDING=1;
+	public static final int EXPANDED=2;
+
+	// Proofs, from the view of the player who moved into the node.
+	public static final int UNPROVEN=0;
+	public static final int PROVEN_WIN=1;
+	public static final int PROVEN_LOSS=2;
+
+	// The size of a node and of an edge, in bytes, in either kind of arena.
+	public static final int NODE_BYTES=40;
+	public static final int EDGE_BYTES=16;
+
+	// The most visits a search gives a node before it stops.
+	public static final int MAX_VISITS=1<<30;
+
+	// The low bits of a node's packed edges that hold the size of its
+	// 	block.
+	private static final int COUNT_BITS=16;
+
+	private final int nodeCapacity;
+	private final long edgeCapacity;
+
+	private final AtomicInteger nodeTop=new AtomicInteger();
+	private final AtomicLong edgeTop=new AtomicLong();
+
+	/**
+	 * Sets the size of the arena. Subclasses allocate the records.
+	 *
+	 * @param nodes The most nodes the arena can hold
+	 * @param edges The most edges the arena can hold
+	 */
+	protected NodeArena(int nodes, long edges) {
+		nodeCapacity=nodes;
+		edgeCapacity=edges;
+	}
+
+	/**
+	 * Forgets every node and edge at once.
+	 */
+	public void reset() {
+		nodeTop.set(0);
+		edgeTop.set(0);
+	}
+
+	/**
+	 * Gets the number of nodes in use.
+	 *
+	 * @return The node count
+	 */
+	public int getNodeCount() {
+		return Math.min(nodeTop.get(), nodeCapacity);
+	}
+
+	/**
+	 * Gets the number of nodes the arena can hold.
+	 *
+	 * @return The node capacity
+	 */
+	public int getNodeCapacity() {
+		return nodeCapacity;
+	}
+
+	/**
+	 * Gets the number of edges in use.
+	 *
+	 * @return The edge count
+	 */
+	public long getEdgesInUse() {
+		return Math.min(edgeTop.get(), edgeCapacity);
+	}
+
+	/**
+	 * Gets the number of edges the arena can hold.
+	 *
+	 * @return The edge capacity
+	 */
+	public long getEdgeCapacity() {
+		return edgeCapacity;
+	}
+
+	/**
+	 * Checks if there is room for a node to be expanded and widened into
+	 * 	its first child.
+	 *
+	 * @param edges The number of edges the expansion needs
+	 *
+	 * @return true if the edges and one more node fit
+	 */
+	public boolean hasRoom(int edges) {
+		return nodeTop.get()<nodeCapacity && edgeTop.get()+edges<=edgeCapacity;
+	}
+
+	/**
+	 * Takes a fresh, unvisited leaf node from the pool.
+	 *
+	 * @return The node's index, or -1 if the arena is full
+	 */
+	public int newNode() {
+		int n=nodeTop.getAndIncrement();
+		if (n>=nodeCapacity) {
+			return -1;
+		}
+
+		clearNode(n);
+		return n;
+	}
+
+	/**
+	 * Takes a run of consecutive edges from the pool.
+	 *
+	 * @param count The number of edges
+	 *
+	 * @return The index of the first edge, or -1 if the arena is full
+	 */
+	public long newEdges(int count) {
+		long e=edgeTop.getAndAdd(count);
+		return e+count<=edgeCapacity ? e : -1;
+	}
+
+	/**
+	 * Packs the first edge and the size of a block of edges.
+	 *
+	 * @param first The index of the first edge
+	 * @param count The number of edges
+	 *
+	 * @return The packed edges
+	 */
+	public static long packEdges(long first, int count) {
+		return first<<COUNT_BITS | count;
+	}
+
+	/**
+	 * Unpacks the index of the first edge from a node's packed edges.
+	 *
+	 * @param edges The packed edges
+	 *
+	 * @return The first edge index
+	 */
+	public static long firstEdge(long edges) {
+		return edges>>>COUNT_BITS;
+	}
+
+	/**
+	 * Unpacks the number of edges from a node's packed edges.
+	 *
+	 * @param edges The packed edges
+	 *
+	 * @return The edge count
+	 */
+	public static int edgeCount(long edges) {
+		return (int)(edges&((1<<COUNT_BITS)-1));
+	}
+
+	/**
+	 * Unpacks the visit count from a node's statistics.
+	 *
+	 * @param stats The packed statistics
+	 *
+	 * @return The number of visits
+	 */
+	public static int visits(long stats) {
+		return (int)(stats>>>32);
+	}
+
+	/**
+	 * Unpacks the win count from a node's statistics.
+	 *
+	 * @param stats The packed statistics
+	 *
+	 * @return The number of wins, which may end in a half
+	 */
+	public static double wins(long stats) {
+		return (stats&0xffffffffL)/2.0;
+	}
+
+	/**
+	 * Makes a node an unvisited, unproven leaf with no edges.
+	 *
+	 * @param node The node index
+	 */
+	protected abstract void clearNode(int node);
+
+	/**
+	 * Gets a node's packed visits and wins.
+	 *
+	 * @param node The node index
+	 *
+	 * @return The statistics, to be unpacked with visits and wins
+	 */
+	public abstract long getStats(int node);
+
+	/**
+	 * Overwrites a node's statistics. Only safe while no search is running.
+	 *
+	 * @param node The node index
+	 * @param s The packed statistics
+	 */
+	public abstract void setStats(int node, long s);
+
+	/**
+	 * Atomically adds to a node's packed visits and wins.
+	 *
+	 * @param node The node index
+	 * @param visits The number of visits to add, which may be negative
+	 * @param halfWins The number of half points to add
+	 *
+	 * @return The statistics after the add
+	 */
+	public abstract long addStats(int node, int visits, int halfWins);
+
+	/**
+	 * Gets what is proven about a node.
+	 *
+	 * @param node The node index
+	 *
+	 * @return UNPROVEN, PROVEN_WIN or PROVEN_LOSS
+	 */
+	public abstract int getProof(int node);
+
+	/**
+	 * Records a proof for a node.
+	 *
+	 * @param node The node index
+	 * @param p PROVEN_WIN or PROVEN_LOSS
+	 */
+	public abstract void setProof(int node, int p);
+
+	/**
+	 * Gets a node's expansion state.
+	 *
+	 * @param node The node index
+	 *
+	 * @return LEAF, EXPANDING or EXPANDED
+	 */
+	public abstract int getState(int node);
+
+	/**
+	 * Moves a node from one state to another if no other thread has.
+	 *
+	 * @return true if this thread made the change
+	 */
+	public abstract boolean changeState(int node, int from, int to);
+
+	/**
+	 * Gives a node its first block of edges and marks it expanded. The
+	 * 	volatile write of the state publishes the edges to other threads.
+	 *
+	 * @param node The node index
+	 * @param first The index of the first edge
+	 * @param count The number of edges
+	 * @param moves The number of moves from the node, at least count
+	 * @param wide The number of those edges already widened into
+	 */
+	public abstract void setEdges(int node, long first, int count, int moves, int wide);
+
+	/**
+	 * Moves an expanded node's edges to a bigger block, publishing it to
+	 * 	other threads. The block must start with the node's old edges, in
+	 * 	the same order, and only the thread that claimed the edge past the
+	 * 	end of the old block may do this.
+	 *
+	 * @param node The node index
+	 * @param first The index of the new block's first edge
+	 * @param count The number of edges in the new block
+	 * @param moves The number of moves from the node, at least count
+	 */
+	public abstract void growEdges(int node, long first, int count, int moves);
+
+	/**
+	 * Gets the number of a node's edges that have been widened into. The
+	 * 	targets of those edges may still be being filled in, and the count
+	 * 	may be one more than the edges in the node's block.
+	 *
+	 * @param node The node index
+	 *
+	 * @return The number of edges, counted from the first
+	 */
+	public abstract int getWidened(int node);
+
+	/**
+	 * Claims the next untried edge of a node, if no other thread has.
+	 *
+	 * @param node The node index
+	 * @param wide The number of edges the caller saw widened into
+	 *
+	 * @return true if this thread now owns edge number wide
+	 */
+	public abstract boolean claimEdge(int node, int wide);
+
+	/**
+	 * Gets a node's block of edges. Only meaningful once the node is
+	 * 	EXPANDED.
+	 *
+	 * @param node The node index
+	 *
+	 * @return The edges, to be unpacked with firstEdge and edgeCount
+	 */
+	public abstract long getEdges(int node);
+
+	/**
+	 * Gets the number of moves from a node, whether or not they have edges
+	 * 	yet. Only meaningful once the node is EXPANDED.
+	 *
+	 * @param node The node index
+	 *
+	 * @return The move count
+	 */
+	public abstract int getMoveCount(int node);
+
+	/**
+	 * Gets the index of a node's copy in another arena, while the tree is
+	 * 	being copied.
+	 *
+	 * @param node The node index
+	 *
+	 * @return The copy's index, or -1 if it has not been copied
+	 */
+	public abstract int getCopy(int node);
+
+	/**
+	 * Notes the index of a node's copy in another arena. Only safe while no
+	 * 	search is running.
+	 *
+	 * @param node The node index
+	 * @param copy The copy's index, or -1 to clear it
+	 */
+	public abstract void setCopy(int node, int copy);
+
+	/**
+	 * Fills in an edge.
+	 *
+	 * @param edge The edge index
+	 * @param move The cell played along the edge
+	 * @param target The index of the node the edge leads to
+	 */
+	public abstract void setEdge(long edge, int move, int target);
+
+	/**
+	 * Points a claimed edge at its node, publishing it to other threads.
+	 *
+	 * @param edge The edge index
+	 * @param target The index of the node the edge leads to
+	 */
+	public abstract void setEdgeTarget(long edge, int target);
+
+	/**
+	 * Gets an edge's packed all-moves-as-first visits and wins.
+	 *
+	 * @param edge The edge index
+	 *
+	 * @return The statistics, to be unpacked with visits and wins
+	 */
+	public abstract long getAmaf(long edge);
+
+	/**
+	 * Overwrites an edge's all-moves-as-first statistics. Only safe while no
+	 * 	search is running, or on a block not yet given to a node.
+	 *
+	 * @param edge The edge index
+	 * @param s The packed statistics
+	 */
+	public abstract void setAmaf(long edge, long s);
+
+	/**
+	 * Atomically adds to an edge's all-moves-as-first visits and wins.
+	 *
+	 * @param edge The edge index
+	 * @param visits The number of visits to add
+	 * @param halfWins The number of half points to add
+	 */
+	public abstract void addAmaf(long edge, int visits, int halfWins);
+
+	/**
+	 * Gets the cell played along an edge.
+	 *
+	 * @param edge The edge index
+	 *
+	 * @return The cell index
+	 */
+	public abstract int getEdgeMove(long edge);
+
+	/**
+	 * Gets the node an edge leads to.
+	 *
+	 * @param edge The edge index
+	 *
+	 * @return The node index, or -1 if the edge has not been widened into
+	 */
+	public abstract int getEdgeTarget(long edge);
+}
@@ -0,0 +1,226 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A node arena in direct memory outside the heap, for trees far larger
+ * 	than the heap could hold. The collector never scans or moves the
+ * 	records, so a tree of millions of nodes causes no pauses.
+ *
+ * Nodes are 40 byte records and edges 16 byte records, packed into slabs
+ * 	of up to 1GB that are all allocated when the arena is created. Fields
+ * 	that several threads update are reached through byte buffer
+ * 	VarHandles, which give the same atomic operations as on arrays since
+ * 	every field is aligned to its size.
+ *
+ * Direct memory is limited by -XX:MaxDirectMemorySize rather than -Xmx,
+ * 	though the limit defaults to the largest heap size when not set.
+ *
+ * @author agent
+ */
+public class OffHeapNodeArena extends NodeArena {
+	private static final VarHandle LONGS=MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+	private static final VarHandle INTS=MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+	// Node records: the packed statistics, the packed edges, the state, the
+	// 	move count, the number widened into, the proof and the copy.
+	private static final int STATS=0;
+	private static final int EDGES=8;
+	private static final int STATE=16;
+	private static final int MOVES=20;
+	private static final int WIDENED=24;
+	private static final int PROOF=28;
+	private static final int COPY=32;
+
+	// Edge records: the packed all-moves-as-first statistics, the move and
+	// 	the target.
+	private static final int EDGE_BITS=4;
+	private static final int AMAF=0;
+	private static final int MOVE=8;
+	private static final int TARGET=12;
+
+	// Records per slab, as a power of two, so that each slab is at most
+	// 	1GB.
+	private static final int NODE_SLAB_BITS=24;
+	private static final int EDGE_SLAB_BITS=30-EDGE_BITS;
+
+	private final ByteBuffer[] nodes;
+	private final ByteBuffer[] edges;
+
+	/**
+	 * Creates an arena with room for a fixed number of nodes and edges,
+	 * 	allocating all of its memory at once.
+	 *
+	 * @param nodes The most nodes the arena can hold
+	 * @param edges The most edges the arena can hold
+	 */
+	public OffHeapNodeArena(int nodes, long edges) {
+		super(nodes, edges);
+		this.nodes=allocate(nodes, NODE_SLAB_BITS, NODE_BYTES);
+		this.edges=allocate(edges, EDGE_SLAB_BITS, EDGE_BYTES);
+	}
+
+	private static ByteBuffer[] allocate(long records, int slabBits, int recordBytes) {
+		long perSlab=1L<<slabBits;
+		ByteBuffer[] slabs=new ByteBuffer[(int)((records+perSlab-1)>>>slabBits)];
+
+		for (int i=0; i<slabs.length; i++) {
+			long count=Math.min(perSlab, records-i*perSlab);
+			slabs[i]=ByteBuffer.allocateDirect((int)count*recordBytes).order(ByteOrder.nativeOrder());
+		}
+
+		return slabs;
+	}
+
+	private ByteBuffer node(int n) {
+		return nodes[n>>>NODE_SLAB_BITS];
+	}
+
+	private static int nodeAt(int n, int field) {
+		return (n&((1<<NODE_SLAB_BITS)-1))*NODE_BYTES+field;
+	}
+
+	private ByteBuffer edge(long e) {
+		return edges[(int)(e>>>EDGE_SLAB_BITS)];
+	}
+
+	private static int edgeAt(long e, int field) {
+		return ((int)(e&((1<<EDGE_SLAB_BITS)-1))<<EDGE_BITS)+field;
+	}
+
+	@Override
+	protected void clearNode(int n) {
+		ByteBuffer slab=node(n);
+		slab.putLong(nodeAt(n, STATS), 0);
+		slab.putInt(nodeAt(n, STATE), LEAF);
+		slab.putLong(nodeAt(n, EDGES), 0);
+		slab.putInt(nodeAt(n, MOVES), 0);
+		slab.putInt(nodeAt(n, WIDENED), 0);
+		slab.putInt(nodeAt(n, PROOF), UNPROVEN);
+	}
+
+	@Override
+	public long getStats(int n) {
+		return (long)LONGS.getVolatile(node(n), nodeAt(n, STATS));
+	}
+
+	@Override
+	public void setStats(int n, long s) {
+		node(n).putLong(nodeAt(n, STATS), s);
+	}
+
+	@Override
+	public long addStats(int n, int visits, int halfWins) {
+		long delta=((long)visits<<32)+halfWins;
+		return (long)LONGS.getAndAdd(node(n), nodeAt(n, STATS), delta)+delta;
+	}
+
+	@Override
+	public int getProof(int n) {
+		return (int)INTS.getVolatile(node(n), nodeAt(n, PROOF));
+	}
+
+	@Override
+	public void setProof(int n, int p) {
+		INTS.setVolatile(node(n), nodeAt(n, PROOF), p);
+	}
+
+	@Override
+	public int getState(int n) {
+		return (int)INTS.getVolatile(node(n), nodeAt(n, STATE));
+	}
+
+	@Override
+	public boolean changeState(int n, int from, int to) {
+		return INTS.compareAndSet(node(n), nodeAt(n, STATE), from, to);
+	}
+
+	@Override
+	public void setEdges(int n, long first, int count, int moves, int wide) {
+		ByteBuffer slab=node(n);
+		slab.putLong(nodeAt(n, EDGES), packEdges(first, count));
+		slab.putInt(nodeAt(n, MOVES), moves);
+		slab.putInt(nodeAt(n, WIDENED), wide);
+		INTS.setVolatile(slab, nodeAt(n, STATE), EXPANDED);
+	}
+
+	@Override
+	public void growEdges(int n, long first, int count, int moves) {
+		ByteBuffer slab=node(n);
+		slab.putInt(nodeAt(n, MOVES), moves);
+		LONGS.setVolatile(slab, nodeAt(n, EDGES), packEdges(first, count));
+	}
+
+	@Override
+	public int getWidened(int n) {
+		return (int)INTS.getVolatile(node(n), nodeAt(n, WIDENED));
+	}
+
+	@Override
+	public boolean claimEdge(int n, int wide) {
+		return INTS.compareAndSet(node(n), nodeAt(n, WIDENED), wide, wide+1);
+	}
+
+	@Override
+	public long getEdges(int n) {
+		return (long)LONGS.getVolatile(node(n), nodeAt(n, EDGES));
+	}
+
+	@Override
+	public int getMoveCount(int n) {
+		return node(n).getInt(nodeAt(n, MOVES));
+	}
+
+	@Override
+	public int getCopy(int n) {
+		return node(n).getInt(nodeAt(n, COPY));
+	}
+
+	@Override
+	public void setCopy(int n, int c) {
+		node(n).putInt(nodeAt(n, COPY), c);
+	}
+
+	@Override
+	public void setEdge(long e, int move, int target) {
+		ByteBuffer slab=edge(e);
+		slab.putInt(edgeAt(e, MOVE), move);
+		slab.putInt(edgeAt(e, TARGET), target);
+		slab.putLong(edgeAt(e, AMAF), 0);
+	}
+
+	@Override
+	public void setEdgeTarget(long e, int target) {
+		INTS.setRelease(edge(e), edgeAt(e, TARGET), target);
+	}
+
+	@Override
+	public long getAmaf(long e) {
+		return (long)LONGS.getVolatile(edge(e), edgeAt(e, AMAF));
+	}
+
+	@Override
+	public void setAmaf(long e, long s) {
+		edge(e).putLong(edgeAt(e, AMAF), s);
+	}
+
+	@Override
+	public void addAmaf(long e, int visits, int halfWins) {
+		LONGS.getAndAdd(edge(e), edgeAt(e, AMAF), ((long)visits<<32)+halfWins);
+	}
+
+	@Override
+	public int getEdgeMove(long e) {
+		return edge(e).getInt(edgeAt(e, MOVE));
+	}
+
+	@Override
+	public int getEdgeTarget(long e) {
+		return (int)INTS.getAcquire(edge(e), edgeAt(e, TARGET));
+	}
+}
@@ -0,0 +1,160 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An opening book read straight from a memory-mapped file. Looking a
+ * 	position up is a binary search over the mapped records, so the book
+ * 	is never copied onto the heap and the operating system pages in only
+ * 	the parts that are used.
+ *
+ * The file is a 16 byte header (the magic number, the format version, the
+ * 	board size and the number of records) followed by 16 byte records
+ * 	sorted by key. Each record is a position's key with the player to move
+ * 	(see Position.getKey), the move to play in the frame of the position's
+ * 	canonical orientation, and the number of random games that chose it.
+ * 	All numbers are big-endian.
+ *
+ * Books are written by BookBuilder.
+ *
+ * @author agent
+ */
+public class OpeningBook {
+	private static final int MAGIC=0x48455842;
+	private static final int VERSION=1;
+	private static final int HEADER=16;
+	private static final int RECORD=16;
+
+	private final MappedByteBuffer records;
+	private final int size;
+	private final int count;
+
+	private OpeningBook(MappedByteBuffer records, int size, int count) {
+		this.records=records;
+		this.size=size;
+		this.count=count;
+	}
+
+	/**
+	 * Maps a book file into memory.
+	 *
+	 * @param file The book
+	 *
+	 * @return The book
+	 *
+	 * @throws IOException If the file cannot be read or is not a book
+	 */
+	public static OpeningBook open(Path file) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel=FileChannel.open(file, StandardOpenOption.READ)) {
+			buffer=channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if (buffer.capacity()<HEADER || buffer.getInt(0)!=MAGIC) {
+			throw new IOException(file+" is not an opening book");
+		}
+		if (buffer.getInt(4)!=VERSION) {
+			throw new IOException(file+" is version "+buffer.getInt(4)+" of the book format, not "+VERSION);
+		}
+
+		int size=buffer.getInt(8);
+		int count=buffer.getInt(12);
+		if (size<1 || size>Position.MAX_SIZE || count<0 || buffer.capacity()!=HEADER+(long)count*RECORD) {
+			throw new IOException(file+" is a damaged opening book");
+		}
+
+		return new OpeningBook(buffer, size, count);
+	}
+
+	/**
+	 * Gets the board size the book is for.
+	 *
+	 * @return The length of a side of the board
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of positions in the book.
+	 *
+	 * @return The number of records
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Looks up the move to play in a position.
+	 *
+	 * @param board The position, which must be of the book's size
+	 * @param playerToMove The player to move
+	 *
+	 * @return The cell to play, or -1 if the position is not in the book
+	 */
+	public int lookup(Position board, int playerToMove) {
+		long key=board.getKey(playerToMove);
+		int low=0;
+		int high=count-1;
+
+		while (low<=high) {
+			int mid=(low+high)>>>1;
+			long k=records.getLong(HEADER+mid*RECORD);
+
+			if (k<key) {
+				low=mid+1;
+			} else if (k>key) {
+				high=mid-1;
+			} else {
+				return board.toCanonical(records.getInt(HEADER+mid*RECORD+8));
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Writes a book. The records are sorted by key first, and must have
+	 * 	distinct keys.
+	 *
+	 * @param file Where to write the book
+	 * @param size The board size
+	 * @param keys The position keys
+	 * @param moves The moves, in the frame of each position's canonical
+	 * 	orientation
+	 * @param games The number of random games behind each move
+	 * @param count The number of records
+	 *
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void write(Path file, int size, long[] keys, int[] moves, int[] games, int count) throws IOException {
+		Integer[] order=new Integer[count];
+		for (int i=0; i<count; i++) {
+			order[i]=i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+
+		try (DataOutputStream out=new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(size);
+			out.writeInt(count);
+
+			for (int i : order) {
+				out.writeLong(keys[i]);
+				out.writeInt(moves[i]);
+				out.writeInt(games[i]);
+			}
+		}
+	}
+}
@@ -6,6 +6,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.*;
+import java.util.concurrent.CancellationException;
 
 /**
  * The actual gameplay view, and associated AI methods.
@@ -16,22 +17,37 @@ public class Panel extends JPanel {
 	private Graphics graph;
 	private BufferedImage image;
 
-	private int[][] board;
+	private final int size;
+	private Position board;
+	private Connectivity links;
 	private Polygon[][] squares;
 
 	private final Color[] colors={Color.GRAY, Color.WHITE, Color.BLACK};
 
 	private int turn=1;
 	private int colour=1;
-	private AI ai;
+	private AsyncAI ai;
 
 	/**
-	 * Default constructor for the view.
+	 * Default constructor for the view, with a 7x7 board and no opening
+	 * 	book.
 	 */
 	public Panel() {
-		board=new int[7][7];
+		this(7, null);
+	}
+
+	/**
+	 * Creates the view for a board of any size.
+	 *
+	 * @param size The length of a side of the board
+	 * @param book The AI's opening book, or null for none
+	 */
+	public Panel(int size, OpeningBook book) {
+		this.size=size;
+		board=new Position(size);
+		links=new Connectivity(size);
 
-		squares=new Polygon[7][7];
+		squares=new Polygon[size][size];
 
 		String[] opts={"Black", "White"};
 		colour=JOptionPane.showOptionDialog(null, "Which colour would you like to play as?", "Choose Colour", JOptionPane.YES_NO_OPTION, JOptionPane.PLAIN_MESSAGE, null, opts, opts[0]);
@@ -43,7 +59,11 @@ public class Panel extends JPanel {
 			colour=2;
 		}
 
-		ai=new MCAI(opp);
+		// Let the AI think on the human's time too.
+		MCAI mcai=new MCAI(opp);
+		mcai.setPondering(true);
+		mcai.setOpeningBook(book);
+		ai=new AsyncAI(mcai);
 
 		image=new BufferedImage(400, 500, BufferedImage.TYPE_INT_RGB);
 		graph=image.getGraphics();
@@ -51,14 +71,38 @@ public class Panel extends JPanel {
 		graph.fillRect(0, 0, 400, 500);
 
 		drawBoard();
-		
-		if (turn==ai.getPlayerCode()) {
-			Location loc=ai.getPlayLocation(board, new Location(-1, -1));
-			playAt(loc.x, loc.y);
-		} 
-		
 
 		addMouseListener(new Mouse());
+
+		// Space tells the AI to stop searching and play its best move so far.
+		getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_SPACE, 0), "moveNow");
+		getActionMap().put("moveNow", new AbstractAction() {
+			public void actionPerformed(ActionEvent e) {
+				ai.moveNow();
+			}
+		});
+
+		if (turn==ai.getPlayerCode()) {
+			think(new Location(-1, -1));
+		}
+	}
+
+	/**
+	 * Starts the AI searching for its move in the background. The move is
+	 * 	played on the event dispatch thread when it arrives, so the window
+	 * 	keeps responding while the AI thinks.
+	 *
+	 * @param last The move the AI is replying to
+	 */
+	private void think(Location last) {
+		ai.requestMove(board, last).whenComplete((loc, error) -> {
+			if (loc!=null) {
+				SwingUtilities.invokeLater(() -> playAt(loc.x, loc.y));
+			} else if (!(error instanceof CancellationException)) {
+				SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, "The computer could not choose a move:\n"+error, "Error", JOptionPane.ERROR_MESSAGE));
+			}
+		});
+		drawBoard();
 	}
 	
 
@@ -70,14 +114,25 @@ public class Panel extends JPanel {
 		graph.setColor(new Color(210, 180, 140));
 		graph.fillRect(0, 0, 400, 500);
 
-		for (int y=0; y<7; y++) {
-			for (int x=0; x<7; x++) {
+		// Shrink the board to fit the window, keeping the proportions of the
+		// 	original 7x7 layout.
+		double scale=7.0/size;
+		double rad=25.0*scale;
+		double top=15+rad+23*scale*(size-1);
+
+		for (int y=0; y<size; y++) {
+			for (int x=0; x<size; x++) {
 				graph.setColor(getColor(x, y));
-				squares[y][x]=drawHex(25.0, x*42+70, y*47+178-(23*x));
+				squares[y][x]=drawHex(rad, x*42*scale+45+rad, y*47*scale+top-(23*scale*x));
 				graph.fillPolygon(squares[y][x]);
 			}
 		}
 
+		if (ai.isThinking()) {
+			graph.setColor(Color.BLACK);
+			graph.drawString("Thinking... press space to move now", 10, 480);
+		}
+
 		paintImmediately(getBounds());
 	}
 	
@@ -120,7 +175,7 @@ public class Panel extends JPanel {
 	 * @return The color of the hexagon at (x, y)
 	 */
 	private Color getColor(int x, int y) {
-		return colors[board[y][x]];
+		return colors[board.get(x, y)];
 	}
 
 	/**
@@ -135,14 +190,17 @@ public class Panel extends JPanel {
 			return null;
 		}
 
-		board[y][x]=turn;
+		board.play(board.cell(x, y), turn);
+		links.place(board.cell(x, y), turn);
 		drawBoard();
 
-		if (((MCAI)ai).calcVal(board)>Math.pow(board.length, 2)) {
+		if (links.hasConnected(ai.getPlayerCode())) {
+			ai.endGame();
 			JOptionPane.showMessageDialog(null, "The computer won. You didn't.", "Victory!", JOptionPane.PLAIN_MESSAGE);
 			turn=-1;
 			return null;
-		} else if (new MCAI(colour).calcVal(board)>Math.pow(board.length, 2)) {
+		} else if (links.hasConnected(turn)) {
+			ai.endGame();
 			JOptionPane.showMessageDialog(null, "You won.", "Victory!", JOptionPane.PLAIN_MESSAGE);
 			turn=-1;
 			return null;
@@ -168,7 +226,7 @@ public class Panel extends JPanel {
 	 * @return true if the location is empty
 	 */
 	private boolean isLegalPlay(int x, int y) {
-		return board[y][x]==0;
+		return board.isEmpty(board.cell(x, y));
 	}
 
 	/**
@@ -195,11 +253,10 @@ public class Panel extends JPanel {
 					}
 				}
 			}
-			
+
 			if (turn==ai.getPlayerCode() && l != null) {
-				Location loc=ai.getPlayLocation(board, l);
-				playAt(loc.x, loc.y);
-			} 
+				think(l);
+			}
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,194 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+/**
+ * Measures how many more stones a player needs to join their two edges.
+ * 	Stones of the player's own colour are free, empty cells cost one stone
+ * 	each and the opponent's stones are walls. A bridge whose two carrier
+ * 	cells are empty lets the path jump straight to the far end of the
+ * 	bridge without paying for either carrier.
+ *
+ * Since every step costs either nothing or one stone, the search is a
+ * 	breadth-first search that settles the board one distance layer at a
+ * 	time, so each call is linear in the number of cells. The work is done
+ * 	in primitive arrays owned by the calling thread, so calls never
+ * 	allocate once a thread has warmed up and are safe to make from any
+ * 	number of threads at once.
+ *
+ * @author agent
+ */
+public class PathEvaluator {
+	// Returned when the opponent has cut the player off completely.
+	public static final int UNREACHABLE=999;
+
+	private static final ThreadLocal<PathEvaluator> SCRATCH=new ThreadLocal<PathEvaluator>();
+
+	private final int size;
+	private final int[] neighbours;
+	private final int[] bridges;
+	private final int[] dist;
+	private final int[] back;
+	private int[] cur;
+	private int[] next;
+	private int curTop;
+	private int nextTop;
+
+	private PathEvaluator(int size) {
+		this.size=size;
+		HexTopology topology=HexTopology.forSize(size);
+		neighbours=topology.getNeighbours();
+		bridges=topology.getBridges();
+		dist=new int[size*size];
+		back=new int[size*size];
+
+		// A cell enters a layer at most once from the previous layer and
+		// 	once more through a free step, so two slots per cell suffice.
+		cur=new int[2*size*size];
+		next=new int[2*size*size];
+	}
+
+	/**
+	 * Gets the number of stones a player still needs to connect their edges.
+	 *
+	 * @param board The position to evaluate
+	 * @param player Constants.WHITE (top to bottom) or Constants.BLACK
+	 * 	(left to right)
+	 *
+	 * @return The number of stones needed, 0 if the player has already
+	 * 	connected, or UNREACHABLE if they cannot connect at all
+	 */
+	public static int distance(Position board, int player) {
+		PathEvaluator e=forSize(board.getSize());
+		return e.run(board, player, false, e.dist, true);
+	}
+
+	/**
+	 * Works out, for every cell, how many stones the shortest connection
+	 * 	for a player that passes through that cell needs. Cells on the
+	 * 	player's best paths get the lowest costs, which makes this a cheap
+	 * 	way to put moves in a sensible order.
+	 *
+	 * @param board The position to evaluate
+	 * @param player Constants.WHITE or Constants.BLACK
+	 * @param costs Filled with the cost for each cell, or UNREACHABLE for
+	 * 	cells no connection can use
+	 */
+	public static void connectionCosts(Position board, int player, int[] costs) {
+		PathEvaluator e=forSize(board.getSize());
+		e.run(board, player, false, e.dist, false);
+		e.run(board, player, true, e.back, false);
+
+		for (int cell=0; cell<e.size*e.size; cell++) {
+			if (e.dist[cell]==UNREACHABLE || e.back[cell]==UNREACHABLE) {
+				costs[cell]=UNREACHABLE;
+			} else {
+				// Both searches paid for the cell itself.
+				costs[cell]=e.dist[cell]+e.back[cell]-(board.isEmpty(cell) ? 1 : 0);
+			}
+		}
+	}
+
+	private static PathEvaluator forSize(int size) {
+		PathEvaluator e=SCRATCH.get();
+
+		if (e==null || e.size!=size) {
+			e=new PathEvaluator(size);
+			SCRATCH.set(e);
+		}
+
+		return e;
+	}
+
+	/**
+	 * Fills in the distance to every cell from one of the player's edges.
+	 *
+	 * @param fromFar true to start from the bottom or right edge instead of
+	 * 	the top or left
+	 * @param d The array to fill
+	 * @param stop true to return as soon as the other edge is reached
+	 *
+	 * @return The distance to the other edge
+	 */
+	private int run(Position board, int player, boolean fromFar, int[] d, boolean stop) {
+		int cells=size*size;
+
+		for (int i=0; i<cells; i++) {
+			d[i]=UNREACHABLE;
+		}
+
+		curTop=0;
+		nextTop=0;
+
+		int edge=fromFar ? size-1 : 0;
+		for (int i=0; i<size; i++) {
+			int cell=player==Constants.WHITE ? edge*size+i : i*size+edge;
+			reach(board, player, cell, 0, d);
+		}
+
+		int target=fromFar ? 0 : size-1;
+		int found=UNREACHABLE;
+
+		int layer=0;
+		while (curTop>0 || nextTop>0) {
+			while (curTop>0) {
+				int cell=cur[--curTop];
+
+				if (d[cell]!=layer) {
+					continue;
+				}
+
+				if (found==UNREACHABLE && (player==Constants.WHITE ? cell/size : cell%size)==target) {
+					found=layer;
+					if (stop) {
+						return found;
+					}
+				}
+
+				int base=cell*HexTopology.DIRECTIONS;
+				for (int i=0; i<HexTopology.DIRECTIONS; i++) {
+					int n=neighbours[base+i];
+
+					if (n>=0) {
+						reach(board, player, n, layer, d);
+					}
+
+					int b=bridges[base+i];
+
+					if (b>=0 && board.isEmpty(n) && board.isEmpty(neighbours[base+HexTopology.next(i)])) {
+						reach(board, player, b, layer, d);
+					}
+				}
+			}
+
+			int[] t=cur;
+			cur=next;
+			next=t;
+			curTop=nextTop;
+			nextTop=0;
+			layer++;
+		}
+
+		return found;
+	}
+
+	/**
+	 * Offers a cell to the search at the cost of getting there plus the
+	 * 	cost of the cell itself.
+	 */
+	private void reach(Position board, int player, int cell, int layer, int[] d) {
+		int c=board.get(cell);
+
+		if (c==player) {
+			if (layer<d[cell]) {
+				d[cell]=layer;
+				cur[curTop++]=cell;
+			}
+		} else if (c==Constants.EMPTY) {
+			if (layer+1<d[cell]) {
+				d[cell]=layer+1;
+				next[nextTop++]=cell;
+			}
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Plays random games out from a position. Each game fills every empty cell,
+ * 	in a fresh random order and alternating colours. A full board always
+ * 	has exactly one winner, so the game is settled by a single flood fill
+ * 	once it is full.
+ *
+ * All-moves-as-first counts are gathered over each batch of games: how often
+ * 	each colour took each empty cell, and how often it then won.
+ *
+ * An instance holds its own scratch space and must only be used by one
+ * 	thread at a time.
+ *
+ * @author agent
+ */
+public class Playout {
+	private final int size;
+	private final int cells;
+	private final int[] neighbours;
+
+	// The colour of every cell on the filled board, and the cells that were
+	// 	empty to begin with.
+	private final int[] filled;
+	private final int[] free;
+
+	// Indexed by (colour-1)*cells+cell. Wins are in half points.
+	private final int[] amafVisits;
+	private final int[] amafWins;
+
+	// Flood fill scratch space. A cell has been seen in the current fill if
+	// 	its entry in seen equals stamp.
+	private final int[] stack;
+	private final int[] seen;
+	private int stamp;
+
+	/**
+	 * Creates a playout engine for a board size.
+	 *
+	 * @param size The length of a side of the board
+	 */
+	public Playout(int size) {
+		this.size=size;
+		cells=size*size;
+		neighbours=HexTopology.forSize(size).getNeighbours();
+		filled=new int[cells];
+		free=new int[cells];
+		amafVisits=new int[2*cells];
+		amafWins=new int[2*cells];
+		stack=new int[cells];
+		seen=new int[cells];
+	}
+
+	/**
+	 * Plays a batch of random games out. The position is left as it was.
+	 *
+	 * @param board The position to play from
+	 * @param toMove The player to move first
+	 * @param games The number of games to play
+	 *
+	 * @return The number of games won by the player who is not to move, in
+	 * 	half points
+	 */
+	public int play(Position board, int toMove, int games) {
+		ThreadLocalRandom random=ThreadLocalRandom.current();
+		int empty=board.getEmptyCount();
+		int other=toMove==Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+		int won=0;
+
+		for (int cell=0; cell<cells; cell++) {
+			filled[cell]=board.get(cell);
+		}
+		for (int i=0; i<empty; i++) {
+			free[i]=board.getEmpty(i);
+		}
+		Arrays.fill(amafVisits, 0);
+		Arrays.fill(amafWins, 0);
+
+		for (int k=0; k<games; k++) {
+			// Shuffle as we fill, so each game needs only one pass.
+			int player=toMove;
+			for (int i=empty-1; i>=0; i--) {
+				int j=random.nextInt(i+1);
+				int cell=free[j];
+				free[j]=free[i];
+				free[i]=cell;
+				filled[cell]=player;
+				player=player==Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+			}
+
+			int winner=whiteConnects() ? Constants.WHITE : Constants.BLACK;
+			if (winner==other) {
+				won+=2;
+			}
+
+			for (int i=0; i<empty; i++) {
+				int cell=free[i];
+				int slot=(filled[cell]-1)*cells+cell;
+				amafVisits[slot]++;
+				if (filled[cell]==winner) {
+					amafWins[slot]+=2;
+				}
+			}
+		}
+
+		return won;
+	}
+
+	/**
+	 * Gets how often a colour took a cell in the last batch.
+	 *
+	 * @param colour Constants.WHITE or Constants.BLACK
+	 * @param cell A cell that was empty when the batch began
+	 *
+	 * @return The number of games
+	 */
+	public int getAmafVisits(int colour, int cell) {
+		return amafVisits[(colour-1)*cells+cell];
+	}
+
+	/**
+	 * Gets how often a colour took a cell and won in the last batch.
+	 *
+	 * @param colour Constants.WHITE or Constants.BLACK
+	 * @param cell A cell that was empty when the batch began
+	 *
+	 * @return The number of wins, in half points
+	 */
+	public int getAmafWins(int colour, int cell) {
+		return amafWins[(colour-1)*cells+cell];
+	}
+
+	/**
+	 * Checks if White joins top and bottom on the filled board.
+	 */
+	private boolean whiteConnects() {
+		int top=0;
+		stamp++;
+
+		for (int x=0; x<size; x++) {
+			if (filled[x]==Constants.WHITE) {
+				seen[x]=stamp;
+				stack[top++]=x;
+			}
+		}
+
+		while (top>0) {
+			int cell=stack[--top];
+			if (cell>=cells-size) {
+				return true;
+			}
+
+			for (int i=cell*HexTopology.DIRECTIONS; i<(cell+1)*HexTopology.DIRECTIONS; i++) {
+				int next=neighbours[i];
+				if (next>=0 && filled[next]==Constants.WHITE && seen[next]!=stamp) {
+					seen[next]=stamp;
+					stack[top++]=next;
+				}
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,374 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.util.Arrays;
+
+/**
+ * A compact bitboard representation of a Hex position. Each colour has
+ * 	its own bit-plane stored in as many longs as the board needs, and the
+ * 	empty cells are kept in a list that is updated as stones are played
+ * 	and taken back, so that neither playing, undoing nor picking an empty
+ * 	cell ever has to scan the board.
+ *
+ * Cells are numbered row by row, so the cell at (x, y) is y*size+x.
+ *
+ * @author agent
+ */
+public class Position {
+	// The largest board whose tables are kept, and that the record and book
+	// 	formats can hold.
+	public static final int MAX_SIZE=63;
+
+	private final int size;
+	private final int cells;
+	private final long[] white;
+	private final long[] black;
+
+	// The first emptyCount entries of empties are the empty cells, and
+	// 	emptyIndex maps each cell to its slot in empties.
+	private final int[] empties;
+	private final int[] emptyIndex;
+	private int emptyCount;
+
+	// Zobrist hashes of the stones as they are and as they would be after
+	// 	turning the board through 180 degrees.
+	private final long[] keys;
+	private long hash;
+	private long rotatedHash;
+
+	/**
+	 * Creates an empty position on a board of the given size.
+	 *
+	 * @param size The length of a side of the board
+	 *
+	 * @throws IllegalArgumentException If the size is not from 1 to MAX_SIZE
+	 */
+	public Position(int size) {
+		checkSize(size);
+		this.size=size;
+		cells=size*size;
+		white=new long[(cells+63)>>>6];
+		black=new long[white.length];
+		empties=new int[cells];
+		emptyIndex=new int[cells];
+		keys=Zobrist.forSize(size);
+
+		for (int i=0; i<cells; i++) {
+			empties[i]=i;
+			emptyIndex[i]=i;
+		}
+		emptyCount=cells;
+	}
+
+	/**
+	 * Checks that a board size can be played.
+	 *
+	 * @param size The length of a side of the board
+	 *
+	 * @return The size
+	 *
+	 * @throws IllegalArgumentException If the size is not from 1 to MAX_SIZE
+	 */
+	public static int checkSize(int size) {
+		if (size<1 || size>MAX_SIZE) {
+			throw new IllegalArgumentException("The board size must be from 1 to "+MAX_SIZE+", not "+size);
+		}
+
+		return size;
+	}
+
+	/**
+	 * Creates a copy of another position.
+	 *
+	 * @param other The position to copy
+	 */
+	public Position(Position other) {
+		this(other.size);
+		copyFrom(other);
+	}
+
+	/**
+	 * Overwrites this position with the contents of another of the same
+	 * 	size without allocating.
+	 *
+	 * @param other The position to copy
+	 */
+	public void copyFrom(Position other) {
+		if (other.size!=size) {
+			throw new IllegalArgumentException("Cannot copy a "+other.size+"x"+other.size+" position into a "+size+"x"+size+" one");
+		}
+
+		System.arraycopy(other.white, 0, white, 0, white.length);
+		System.arraycopy(other.black, 0, black, 0, black.length);
+		System.arraycopy(other.empties, 0, empties, 0, cells);
+		System.arraycopy(other.emptyIndex, 0, emptyIndex, 0, cells);
+		emptyCount=other.emptyCount;
+		hash=other.hash;
+		rotatedHash=other.rotatedHash;
+	}
+
+	/**
+	 * Compares the stones on this position and another for equality.
+	 *
+	 * @param o The object to compare to
+	 *
+	 * @return true if it is a position with the same size and stones, else
+	 * 	false
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Position)) {
+			return false;
+		}
+
+		Position p=(Position)o;
+		return size==p.size && Arrays.equals(white, p.white) && Arrays.equals(black, p.black);
+	}
+
+	/**
+	 * Gets a hash code from the Zobrist hash. Like the stones it comes
+	 * 	from, it changes with every move, so a position must not be changed
+	 * 	while it is a key in a hash table.
+	 *
+	 * @return The hash code
+	 */
+	@Override
+	public int hashCode() {
+		return Long.hashCode(hash);
+	}
+
+	/**
+	 * Gets the Zobrist hash of the stones on the board.
+	 *
+	 * @return The hash
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Gets a hash that is the same for this position and for the position
+	 * 	made by turning it through 180 degrees, which is equivalent in Hex.
+	 *
+	 * @return The smaller of the two hashes
+	 */
+	public long getCanonicalHash() {
+		return Math.min(hash, rotatedHash);
+	}
+
+	/**
+	 * Gets the cell a cell moves to when the board is turned through 180
+	 * 	degrees.
+	 *
+	 * @param cell The cell index
+	 *
+	 * @return The index of the rotated cell
+	 */
+	public int rotate(int cell) {
+		return cells-1-cell;
+	}
+
+	/**
+	 * Converts a cell between this position's own frame and the frame of
+	 * 	its canonical orientation, the one its canonical hash belongs to.
+	 * 	Turning the board round is its own inverse, so this works in both
+	 * 	directions.
+	 *
+	 * @param cell The cell index in one frame
+	 *
+	 * @return The cell index in the other
+	 */
+	public int toCanonical(int cell) {
+		return hash==getCanonicalHash() ? cell : rotate(cell);
+	}
+
+	/**
+	 * Gets the key this position is stored under, in a transposition table
+	 * 	or an opening book, with a given player to move: the canonical hash
+	 * 	with the player folded in.
+	 *
+	 * @param playerToMove The player to move
+	 *
+	 * @return The key
+	 */
+	public long getKey(int playerToMove) {
+		long key=getCanonicalHash();
+
+		return playerToMove==Constants.BLACK ? key^Zobrist.BLACK_TO_MOVE : key;
+	}
+
+	/**
+	 * Gets the length of a side of the board.
+	 *
+	 * @return The board size
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of cells on the board.
+	 *
+	 * @return size*size
+	 */
+	public int getCellCount() {
+		return cells;
+	}
+
+	/**
+	 * Gets the index of the cell at the given coordinates.
+	 *
+	 * @param x The x coordinate of the cell
+	 * @param y The y coordinate of the cell
+	 *
+	 * @return The cell index
+	 */
+	public int cell(int x, int y) {
+		return y*size+x;
+	}
+
+	/**
+	 * Gets the x coordinate of a cell.
+	 *
+	 * @param cell The cell index
+	 *
+	 * @return The x coordinate
+	 */
+	public int x(int cell) {
+		return cell%size;
+	}
+
+	/**
+	 * Gets the y coordinate of a cell.
+	 *
+	 * @param cell The cell index
+	 *
+	 * @return The y coordinate
+	 */
+	public int y(int cell) {
+		return cell/size;
+	}
+
+	/**
+	 * Gets the colour of the stone on a cell.
+	 *
+	 * @param cell The cell index
+	 *
+	 * @return One of Constants.EMPTY, Constants.WHITE or Constants.BLACK
+	 */
+	public int get(int cell) {
+		long bit=1L<<cell;
+
+		if ((white[cell>>>6]&bit)!=0) {
+			return Constants.WHITE;
+		} else if ((black[cell>>>6]&bit)!=0) {
+			return Constants.BLACK;
+		}
+
+		return Constants.EMPTY;
+	}
+
+	/**
+	 * Gets the colour of the stone at the given coordinates.
+	 *
+	 * @param x The x coordinate of the cell
+	 * @param y The y coordinate of the cell
+	 *
+	 * @return One of Constants.EMPTY, Constants.WHITE or Constants.BLACK
+	 */
+	public int get(int x, int y) {
+		return get(y*size+x);
+	}
+
+	/**
+	 * Checks if a cell is empty.
+	 *
+	 * @param cell The cell index
+	 *
+	 * @return true if neither colour has a stone there
+	 */
+	public boolean isEmpty(int cell) {
+		return ((white[cell>>>6]|black[cell>>>6])&(1L<<cell))==0;
+	}
+
+	/**
+	 * Places a stone on an empty cell.
+	 *
+	 * @param cell The cell index
+	 * @param colour Constants.WHITE or Constants.BLACK
+	 */
+	public void play(int cell, int colour) {
+		if (colour==Constants.WHITE) {
+			white[cell>>>6]|=1L<<cell;
+		} else {
+			black[cell>>>6]|=1L<<cell;
+		}
+
+		int k=(colour-1)*cells;
+		hash^=keys[k+cell];
+		rotatedHash^=keys[k+cells-1-cell];
+
+		// Swap the cell to the end of the list and shrink it. The cell is
+		// 	parked just past the end, which makes a LIFO undo trivial.
+		int i=emptyIndex[cell];
+		int last=empties[--emptyCount];
+		empties[i]=last;
+		emptyIndex[last]=i;
+		empties[emptyCount]=cell;
+		emptyIndex[cell]=emptyCount;
+	}
+
+	/**
+	 * Removes the stone from a cell. Stones may be taken back in any order.
+	 *
+	 * @param cell The cell index
+	 */
+	public void undo(int cell) {
+		int k=(get(cell)-1)*cells;
+		hash^=keys[k+cell];
+		rotatedHash^=keys[k+cells-1-cell];
+
+		long mask=~(1L<<cell);
+		white[cell>>>6]&=mask;
+		black[cell>>>6]&=mask;
+
+		int i=emptyIndex[cell];
+		int first=empties[emptyCount];
+		empties[i]=first;
+		emptyIndex[first]=i;
+		empties[emptyCount]=cell;
+		emptyIndex[cell]=emptyCount;
+		emptyCount++;
+	}
+
+	/**
+	 * Gets the number of entries in the empty-cell list.
+	 *
+	 * @return The number of empty cells
+	 */
+	public int getEmptyCount() {
+		return emptyCount;
+	}
+
+	/**
+	 * Gets an entry of the empty-cell list. The order of the list changes
+	 * 	as stones are played and taken back.
+	 *
+	 * @param i An index less than getEmptyCount()
+	 *
+	 * @return The index of an empty cell
+	 */
+	public int getEmpty(int i) {
+		return empties[i];
+	}
+
+	/**
+	 * Checks the board for empty cells.
+	 *
+	 * @return The existance of an empty cell
+	 */
+	public boolean hasEmpty() {
+		return emptyCount>0;
+	}
+}
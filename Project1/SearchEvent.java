@@ -0,0 +1,49 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A JFR event for the work one search thread did on one move: how many
+ * 	iterations it ran and how its time split between the four phases.
+ *
+ * @author agent
+ */
+@Name("hex.Search")
+@Label("Search Thread")
+@Category({"Hex", "Search"})
+@Description("The work one thread did while searching for a move")
+public class SearchEvent extends jdk.jfr.Event {
+	@Label("Iterations")
+	public long iterations;
+
+	@Label("Playouts")
+	public long playouts;
+
+	@Label("Max Depth")
+	public int maxDepth;
+
+	@Label("Evaluator Calls")
+	public long evaluatorCalls;
+
+	@Label("Select")
+	@Timespan(Timespan.NANOSECONDS)
+	public long selectTime;
+
+	@Label("Expand")
+	@Timespan(Timespan.NANOSECONDS)
+	public long expandTime;
+
+	@Label("Simulate")
+	@Timespan(Timespan.NANOSECONDS)
+	public long simulateTime;
+
+	@Label("Backpropagate")
+	@Timespan(Timespan.NANOSECONDS)
+	public long backpropagateTime;
+}
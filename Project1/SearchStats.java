@@ -0,0 +1,163 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Rolling counters over the searches of every MCAI in the JVM, published
+ * 	through JMX as hex:type=SearchStats. Rates are taken over the last
+ * 	few searches, and the tree figures are those of the last search.
+ *
+ * @author agent
+ */
+public class SearchStats implements SearchStatsMBean {
+	private static final int WINDOW=32;
+
+	private static SearchStats instance;
+
+	// The last WINDOW searches, as a ring.
+	private final long[] iterations=new long[WINDOW];
+	private final long[] playouts=new long[WINDOW];
+	private final long[] nanos=new long[WINDOW];
+	private long searches;
+
+	private long totalIterations;
+	private long evaluatorCalls;
+	private long tableHits;
+	private long tableMisses;
+	private long tableReplacements;
+	private long nodeCount;
+	private int maxDepth;
+	private double bestMoveVisitShare;
+
+	private SearchStats() {}
+
+	/**
+	 * Gets the shared counters, registering them with the platform MBean
+	 * 	server the first time.
+	 *
+	 * @return The counters
+	 */
+	public static synchronized SearchStats get() {
+		if (instance==null) {
+			instance=new SearchStats();
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName("hex:type=SearchStats"));
+			} catch (JMException e) {
+				// Telemetry is optional, so the search carries on without it.
+			}
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Adds a search to the counters.
+	 *
+	 * @param iterations The iterations run by every thread
+	 * @param playouts The random games played out
+	 * @param nanos How long the search took
+	 * @param nodes The number of nodes in the tree at the end
+	 * @param depth The deepest descent
+	 * @param evaluatorCalls The number of position evaluations
+	 * @param hits The transposition table lookups that found a node
+	 * @param misses The transposition table lookups that found nothing
+	 * @param replacements The transposition table entries pushed out of a
+	 * 	full bucket
+	 * @param bestShare The share of the root visits that went to the chosen
+	 * 	move
+	 */
+	public synchronized void record(long iterations, long playouts, long nanos, long nodes, int depth,
+		long evaluatorCalls, long hits, long misses, long replacements, double bestShare) {
+		int slot=(int)(searches%WINDOW);
+		this.iterations[slot]=iterations;
+		this.playouts[slot]=playouts;
+		this.nanos[slot]=nanos;
+		searches++;
+
+		totalIterations+=iterations;
+		this.evaluatorCalls+=evaluatorCalls;
+		tableHits+=hits;
+		tableMisses+=misses;
+		tableReplacements+=replacements;
+		nodeCount=nodes;
+		maxDepth=depth;
+		bestMoveVisitShare=bestShare;
+	}
+
+	@Override
+	public synchronized double getIterationsPerSecond() {
+		return rate(iterations);
+	}
+
+	@Override
+	public synchronized double getPlayoutsPerSecond() {
+		return rate(playouts);
+	}
+
+	@Override
+	public synchronized long getNodeCount() {
+		return nodeCount;
+	}
+
+	@Override
+	public synchronized int getMaxDepth() {
+		return maxDepth;
+	}
+
+	@Override
+	public synchronized double getBestMoveVisitShare() {
+		return bestMoveVisitShare;
+	}
+
+	@Override
+	public synchronized long getEvaluatorCalls() {
+		return evaluatorCalls;
+	}
+
+	@Override
+	public synchronized double getTableHitRate() {
+		long lookups=tableHits+tableMisses;
+		return lookups==0 ? 0 : (double)tableHits/lookups;
+	}
+
+	@Override
+	public synchronized long getTableHits() {
+		return tableHits;
+	}
+
+	@Override
+	public synchronized long getTableMisses() {
+		return tableMisses;
+	}
+
+	@Override
+	public synchronized long getTableReplacements() {
+		return tableReplacements;
+	}
+
+	@Override
+	public synchronized long getSearches() {
+		return searches;
+	}
+
+	@Override
+	public synchronized long getTotalIterations() {
+		return totalIterations;
+	}
+
+	private double rate(long[] counts) {
+		long count=0;
+		long time=0;
+
+		for (int i=0; i<Math.min(searches, WINDOW); i++) {
+			count+=counts[i];
+			time+=nanos[i];
+		}
+
+		return time==0 ? 0 : count*1e9/time;
+	}
+}
@@ -0,0 +1,75 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+/**
+ * The management interface of SearchStats.
+ *
+ * @author agent
+ */
+public interface SearchStatsMBean {
+	/**
+	 * @return The search iterations per second over the recent searches
+	 */
+	double getIterationsPerSecond();
+
+	/**
+	 * @return The random games played out per second over the recent searches
+	 */
+	double getPlayoutsPerSecond();
+
+	/**
+	 * @return The number of nodes in the tree after the last search
+	 */
+	long getNodeCount();
+
+	/**
+	 * @return The deepest descent of the last search
+	 */
+	int getMaxDepth();
+
+	/**
+	 * @return The share of the root visits that went to the move chosen by
+	 * 	the last search
+	 */
+	double getBestMoveVisitShare();
+
+	/**
+	 * @return The number of position evaluations over all searches
+	 */
+	long getEvaluatorCalls();
+
+	/**
+	 * @return The share of transposition table lookups that found a node,
+	 * 	over all searches
+	 */
+	double getTableHitRate();
+
+	/**
+	 * @return The number of transposition table lookups that found a node,
+	 * 	over all searches
+	 */
+	long getTableHits();
+
+	/**
+	 * @return The number of transposition table lookups that found nothing,
+	 * 	over all searches
+	 */
+	long getTableMisses();
+
+	/**
+	 * @return The number of transposition table entries pushed out of a
+	 * 	full bucket, over all searches
+	 */
+	long getTableReplacements();
+
+	/**
+	 * @return The number of searches run
+	 */
+	long getSearches();
+
+	/**
+	 * @return The number of iterations over all searches
+	 */
+	long getTotalIterations();
+}
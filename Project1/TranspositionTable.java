@@ -0,0 +1,165 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A fixed-size hash table from position hashes to search nodes, so that a
+ * 	position reached by several move orders is searched as one node.
+ *
+ * Each key hashes to a bucket of four slots. When a bucket is full the
+ * 	entry with the lowest weight (normally its visit count) is replaced,
+ * 	so the table keeps sharing the nodes that have had the most work put
+ * 	into them. A replaced node stays in the tree, it just stops being
+ * 	found by new transpositions.
+ *
+ * The table takes no locks, so every search thread can use it at once.
+ * 	Each slot keeps its value and its key xored with the value. A reader
+ * 	only takes a value whose check word gives back the key it is looking
+ * 	for, so a slot that two threads wrote at the same time, and that
+ * 	holds half of each entry, reads as empty rather than as the wrong
+ * 	node. The check word is written after the value with release
+ * 	semantics, so a node found in the table has been set up.
+ *
+ * @author agent
+ */
+public class TranspositionTable {
+	private static final int WAYS=4;
+
+	private static final VarHandle LONGS=MethodHandles.arrayElementVarHandle(long[].class);
+
+	private final long[] checks;
+	private final int[] values;
+	private final int bucketMask;
+	private final IntUnaryOperator weight;
+
+	private final LongAdder hits=new LongAdder();
+	private final LongAdder misses=new LongAdder();
+	private final LongAdder replacements=new LongAdder();
+
+	/**
+	 * Creates an empty table.
+	 *
+	 * @param capacity The maximum number of entries, rounded up to a power
+	 * 	of two of at least four
+	 * @param weight Gets how valuable it is to keep the entry for a node
+	 */
+	public TranspositionTable(int capacity, IntUnaryOperator weight) {
+		int buckets=Integer.highestOneBit(Math.max(capacity/WAYS, 1));
+		if (buckets*WAYS<capacity) {
+			buckets<<=1;
+		}
+
+		checks=new long[buckets*WAYS];
+		values=new int[buckets*WAYS];
+		bucketMask=buckets-1;
+		this.weight=weight;
+		clear();
+	}
+
+	/**
+	 * Removes every entry. The counters keep counting over the life of the
+	 * 	table, so that a search which clears the table part way through is
+	 * 	still counted whole. Only safe while no other thread is using the
+	 * 	table.
+	 */
+	public void clear() {
+		Arrays.fill(values, -1);
+	}
+
+	/**
+	 * Looks up the entry for a key.
+	 *
+	 * @param key The position hash
+	 *
+	 * @return The stored node index, or -1 if there is none
+	 */
+	public int get(long key) {
+		int b=bucket(key);
+
+		for (int i=b; i<b+WAYS; i++) {
+			long check=(long)LONGS.getAcquire(checks, i);
+			int value=values[i];
+			if (value>=0 && (check^value)==key) {
+				hits.increment();
+				return value;
+			}
+		}
+
+		misses.increment();
+		return -1;
+	}
+
+	/**
+	 * Stores an entry, replacing the least valuable entry in its bucket if
+	 * 	the bucket is full.
+	 *
+	 * @param key The position hash
+	 * @param value The node index to store
+	 */
+	public void put(long key, int value) {
+		int b=bucket(key);
+		int victim=-1;
+		int victimWeight=Integer.MAX_VALUE;
+		boolean same=false;
+
+		for (int i=b; i<b+WAYS; i++) {
+			int v=values[i];
+			if (v<0 || (checks[i]^v)==key) {
+				victim=i;
+				same=v>=0;
+				break;
+			}
+
+			int w=weight.applyAsInt(v);
+			if (w<victimWeight) {
+				victim=i;
+				victimWeight=w;
+			}
+		}
+
+		if (!same && values[victim]>=0) {
+			replacements.increment();
+		}
+
+		values[victim]=value;
+		LONGS.setRelease(checks, victim, key^value);
+	}
+
+	/**
+	 * Gets the number of lookups that found an entry.
+	 *
+	 * @return The hit count
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Gets the number of lookups that found nothing.
+	 *
+	 * @return The miss count
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets the number of entries pushed out of a full bucket.
+	 *
+	 * @return The replacement count
+	 */
+	public long getReplacements() {
+		return replacements.sum();
+	}
+
+	private int bucket(long key) {
+		// Mix the high bits in, since they are as random as the low ones.
+		return ((int)(key^(key>>>32))&bucketMask)*WAYS;
+	}
+}
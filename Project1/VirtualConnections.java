@@ -0,0 +1,624 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.util.Arrays;
+
+/**
+ * Finds virtual connections for one player with H-search. A virtual
+ * 	connection (VC) between two nodes holds even if the opponent moves
+ * 	first, as long as the player answers every intrusion into its carrier,
+ * 	the empty cells it relies on. A semi-connection (SC) holds if the player
+ * 	moves first, by playing its key.
+ *
+ * The nodes are empty cells, groups of the player's stones and the
+ * 	player's two edges, with groups touching an edge counted as part of
+ * 	it. Neighbouring nodes start out virtually connected, and so do the
+ * 	two ends of every Bridge whose carriers are both empty. Two
+ * 	connections that meet at a node with disjoint carriers are then
+ * 	combined (the AND rule): through a group they make a VC, and through
+ * 	an empty cell an SC keyed on that cell. Semi-connections between the
+ * 	same nodes whose carriers have nothing in common make a VC (the OR
+ * 	rule), since the player can always answer in the one the opponent did
+ * 	not touch. New connections are combined with the ones already found
+ * 	until nothing more comes out.
+ *
+ * Only a few connections with the smallest carriers are kept for each
+ * 	pair of nodes, so the search is not complete, but everything it finds
+ * 	is sound. A connection between the two edges wins the game, and a
+ * 	semi-connection between them leaves the opponent a must-play region:
+ * 	the cells common to every such carrier, outside which they lose.
+ *
+ * An instance holds its own scratch space and must only be used by one
+ * 	thread at a time.
+ *
+ * @author agent
+ */
+public class VirtualConnections {
+	// The most connections and semi-connections kept for one pair of nodes.
+	private static final int MAX_VCS=4;
+	private static final int MAX_SCS=8;
+
+	// A bound on the connections combined per position, which keeps the
+	// 	cost of a crowded board in check.
+	private static final int MAX_WORK=1<<14;
+
+	private final int size;
+	private final int cells;
+	private final int nodes;
+	private final int words;
+	private final int[] neighbours;
+	private final int[] bridges;
+	private final int first;
+	private final int second;
+
+	private int colour;
+	private boolean won;
+
+	// The node each cell belongs to, or -1 for the opponent's stones, and
+	// 	which cells are empty.
+	private final int[] nodeOf;
+	private final boolean[] empty;
+
+	// Connections for the pair of nodes a<b at index a*nodes+b. Each
+	// 	carrier takes words longs, one bit per cell.
+	private final int[] vcCount;
+	private final long[][] vcSets;
+	private final int[] scCount;
+	private final long[][] scSets;
+	private final int[][] scKeys;
+
+	// For each node, the nodes it has a connection to.
+	private final int[] partnerCount;
+	private final int[][] partners;
+
+	// New connections still to be combined with the others.
+	private int[] queuePairs;
+	private long[] queueSets;
+	private int queueHead;
+	private int queueTail;
+
+	private final int[] stack;
+	private final long[] scratch;
+	private final long[] common;
+	private final long[] union;
+
+	/**
+	 * Creates an engine for a board size.
+	 *
+	 * @param size The length of a side of the board
+	 */
+	public VirtualConnections(int size) {
+		this.size=size;
+		cells=size*size;
+		nodes=cells+2;
+		words=(cells+63)>>>6;
+		HexTopology topology=HexTopology.forSize(size);
+		neighbours=topology.getNeighbours();
+		bridges=topology.getBridges();
+		first=cells;
+		second=cells+1;
+
+		nodeOf=new int[cells];
+		empty=new boolean[cells];
+		vcCount=new int[nodes*nodes];
+		vcSets=new long[nodes*nodes][];
+		scCount=new int[nodes*nodes];
+		scSets=new long[nodes*nodes][];
+		scKeys=new int[nodes*nodes][];
+		partnerCount=new int[nodes];
+		partners=new int[nodes][];
+		queuePairs=new int[256];
+		queueSets=new long[256*words];
+		stack=new int[cells];
+		scratch=new long[words];
+		common=new long[words];
+		union=new long[words];
+	}
+
+	/**
+	 * Finds the connections of a player on a position, forgetting any found
+	 * 	before.
+	 *
+	 * @param board The position
+	 * @param colour The player to find connections for
+	 */
+	public void compute(Position board, int colour) {
+		this.colour=colour;
+		won=false;
+		Arrays.fill(vcCount, 0);
+		Arrays.fill(scCount, 0);
+		Arrays.fill(partnerCount, 0);
+		queueHead=0;
+		queueTail=0;
+
+		findNodes(board);
+		if (won) {
+			return;
+		}
+
+		Arrays.fill(scratch, 0);
+		for (int cell=0; cell<cells; cell++) {
+			int a=nodeOf[cell];
+			if (a<0) {
+				continue;
+			}
+
+			if (empty[cell]) {
+				int edge=edgeOf(cell);
+				if (edge>=0) {
+					addVc(a, edge, scratch);
+				}
+			}
+
+			int base=cell*HexTopology.DIRECTIONS;
+			for (int i=0; i<HexTopology.DIRECTIONS; i++) {
+				int n=neighbours[base+i];
+				if (n>=0 && nodeOf[n]>=0 && nodeOf[n]!=a) {
+					addVc(a, nodeOf[n], scratch);
+				}
+			}
+		}
+
+		for (int cell=0; cell<cells; cell++) {
+			if (nodeOf[cell]>=0) {
+				addBridges(cell);
+			}
+		}
+
+		for (int work=0; queueHead<queueTail && work<MAX_WORK; work++) {
+			combine(queueHead++);
+		}
+	}
+
+	/**
+	 * Checks if the player is connected between their edges, whoever moves
+	 * 	next.
+	 *
+	 * @return true if the player has won
+	 */
+	public boolean isWon() {
+		return won;
+	}
+
+	/**
+	 * Gets a move that connects the player's edges if they play it next.
+	 *
+	 * @return The key of a semi-connection between the edges, or -1
+	 */
+	public int getWinningMove() {
+		int pair=first*nodes+second;
+		if (won || scCount[pair]==0) {
+			return -1;
+		}
+
+		return scKeys[pair][0];
+	}
+
+	/**
+	 * Gets the cells the opponent must play in to stop the player joining
+	 * 	their edges on the next move: those in every semi-connection between
+	 * 	the edges.
+	 *
+	 * @param out Receives the cells
+	 *
+	 * @return The number of cells, which is 0 if the opponent cannot stop
+	 * 	the player, or -1 if the player threatens no connection
+	 */
+	public int getMustPlay(int[] out) {
+		if (won) {
+			return 0;
+		}
+
+		int pair=first*nodes+second;
+		if (scCount[pair]==0) {
+			return -1;
+		}
+
+		long[] sets=scSets[pair];
+		System.arraycopy(sets, 0, scratch, 0, words);
+		for (int i=1; i<scCount[pair]; i++) {
+			for (int w=0; w<words; w++) {
+				scratch[w]&=sets[i*words+w];
+			}
+		}
+
+		return toCells(scratch, 0, out);
+	}
+
+	/**
+	 * Gets the carrier of the smallest connection between the player's
+	 * 	edges.
+	 *
+	 * @param out Receives the cells
+	 *
+	 * @return The number of cells, or -1 if the edges are not connected
+	 */
+	public int getCarrier(int[] out) {
+		int pair=first*nodes+second;
+		if (vcCount[pair]==0) {
+			return -1;
+		}
+
+		return toCells(vcSets[pair], 0, out);
+	}
+
+	/**
+	 * Works out which node each cell belongs to, and whether one group
+	 * 	already touches both edges.
+	 */
+	private void findNodes(Position board) {
+		Arrays.fill(nodeOf, -1);
+
+		for (int cell=0; cell<cells; cell++) {
+			int c=board.get(cell);
+			empty[cell]=c==Constants.EMPTY;
+			if (c==Constants.EMPTY) {
+				nodeOf[cell]=cell;
+			} else if (c==colour && nodeOf[cell]<0) {
+				// Fill the group, naming it after its first cell unless it
+				// 	touches an edge.
+				int top=0;
+				int group=cell;
+				boolean touchesFirst=false;
+				boolean touchesSecond=false;
+				stack[top++]=cell;
+				nodeOf[cell]=cell;
+
+				for (int i=0; i<top; i++) {
+					int s=stack[i];
+					touchesFirst|=edgeOf(s)==first;
+					touchesSecond|=edgeOf(s)==second;
+
+					for (int j=s*HexTopology.DIRECTIONS; j<(s+1)*HexTopology.DIRECTIONS; j++) {
+						int n=neighbours[j];
+						if (n>=0 && board.get(n)==colour && nodeOf[n]<0) {
+							nodeOf[n]=cell;
+							stack[top++]=n;
+						}
+					}
+				}
+
+				if (touchesFirst && touchesSecond) {
+					won=true;
+				} else if (touchesFirst) {
+					group=first;
+				} else if (touchesSecond) {
+					group=second;
+				}
+
+				for (int i=0; i<top; i++) {
+					nodeOf[stack[i]]=group;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the bridges from a cell to other nodes, and to the player's edges
+	 * 	from the row next to them.
+	 */
+	private void addBridges(int cell) {
+		int base=cell*HexTopology.DIRECTIONS;
+		int a=nodeOf[cell];
+		int edgeCarrier=-1;
+		int edge=-1;
+
+		for (int i=0; i<HexTopology.DIRECTIONS; i++) {
+			int m1=neighbours[base+i];
+			if (m1>=0 && empty[m1] && edgeOf(m1)>=0 && edgeOf(cell)<0) {
+				if (edgeCarrier>=0 && edge==edgeOf(m1)) {
+					Arrays.fill(scratch, 0);
+					set(scratch, 0, edgeCarrier);
+					set(scratch, 0, m1);
+					addVc(a, edge, scratch);
+				}
+				edgeCarrier=m1;
+				edge=edgeOf(m1);
+			}
+
+			int end=bridges[base+i];
+			if (end<0 || nodeOf[end]<0 || nodeOf[end]==a) {
+				continue;
+			}
+			int m2=neighbours[base+HexTopology.next(i)];
+			if (empty[m1] && empty[m2]) {
+				Arrays.fill(scratch, 0);
+				set(scratch, 0, m1);
+				set(scratch, 0, m2);
+				addVc(a, nodeOf[end], scratch);
+			}
+		}
+	}
+
+	/**
+	 * Applies the AND rule to a new connection: joins it to every connection
+	 * 	from either of its ends that it does not overlap.
+	 */
+	private void combine(int entry) {
+		int pair=queuePairs[entry];
+		int off=entry*words;
+		int x=pair/nodes;
+		int y=pair%nodes;
+
+		for (int end=0; end<2; end++) {
+			int z=end==0 ? x : y;
+			int o=end==0 ? y : x;
+			if (z>=cells) {
+				continue;
+			}
+
+			for (int p=0; p<partnerCount[z]; p++) {
+				int w=partners[z][p];
+				if (w==o || contains(queueSets, off, w)) {
+					continue;
+				}
+
+				int other=z<w ? z*nodes+w : w*nodes+z;
+				long[] sets=vcSets[other];
+				for (int i=0; i<vcCount[other]; i++) {
+					int b=i*words;
+					if (contains(sets, b, o) || !disjoint(queueSets, off, sets, b)) {
+						continue;
+					}
+
+					for (int k=0; k<words; k++) {
+						scratch[k]=queueSets[off+k] | sets[b+k];
+					}
+					if (empty[z]) {
+						set(scratch, 0, z);
+						addSc(o, w, scratch, z);
+					} else {
+						addVc(o, w, scratch);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records a connection unless a smaller one is already known, and
+	 * 	queues it to be combined.
+	 */
+	private void addVc(int a, int b, long[] carrier) {
+		if (a==b) {
+			return;
+		}
+		int pair=a<b ? a*nodes+b : b*nodes+a;
+
+		if (vcSets[pair]==null) {
+			vcSets[pair]=new long[MAX_VCS*words];
+		}
+		int slot=insert(vcSets[pair], vcCount[pair], MAX_VCS, carrier);
+		if (slot<0) {
+			return;
+		}
+		if (vcCount[pair]==0) {
+			addPartner(a, b);
+			addPartner(b, a);
+		}
+		vcCount[pair]=Math.max(vcCount[pair], slot+1);
+		vcCount[pair]=compact(vcSets[pair], null, vcCount[pair], slot);
+
+		if (pair==first*nodes+second) {
+			won=true;
+		}
+
+		if (queueTail==queuePairs.length) {
+			queuePairs=Arrays.copyOf(queuePairs, queueTail*2);
+			queueSets=Arrays.copyOf(queueSets, queueTail*2*words);
+		}
+		queuePairs[queueTail]=pair;
+		System.arraycopy(carrier, 0, queueSets, queueTail*words, words);
+		queueTail++;
+	}
+
+	/**
+	 * Records a semi-connection unless a smaller one or a connection is
+	 * 	already known, then applies the OR rule to it and the others between
+	 * 	the same nodes.
+	 */
+	private void addSc(int a, int b, long[] carrier, int key) {
+		int pair=a<b ? a*nodes+b : b*nodes+a;
+
+		for (int i=0; i<vcCount[pair]; i++) {
+			if (subset(vcSets[pair], i*words, carrier)) {
+				return;
+			}
+		}
+
+		if (scSets[pair]==null) {
+			scSets[pair]=new long[MAX_SCS*words];
+			scKeys[pair]=new int[MAX_SCS];
+		}
+		long[] sets=scSets[pair];
+		int slot=insert(sets, scCount[pair], MAX_SCS, carrier);
+		if (slot<0) {
+			return;
+		}
+		scKeys[pair][slot]=key;
+		scCount[pair]=Math.max(scCount[pair], slot+1);
+		scCount[pair]=compact(sets, scKeys[pair], scCount[pair], slot);
+
+		// The new carrier may have moved, so work from the caller's copy.
+		System.arraycopy(carrier, 0, common, 0, words);
+		System.arraycopy(carrier, 0, union, 0, words);
+		for (int i=0; i<scCount[pair]; i++) {
+			int s=i*words;
+			if (subset(sets, s, carrier)) {
+				continue;
+			}
+
+			boolean narrows=false;
+			for (int w=0; w<words; w++) {
+				narrows|=(common[w] & ~sets[s+w])!=0;
+			}
+			if (!narrows) {
+				continue;
+			}
+
+			boolean none=true;
+			for (int w=0; w<words; w++) {
+				common[w]&=sets[s+w];
+				union[w]|=sets[s+w];
+				none&=common[w]==0;
+			}
+			if (none) {
+				addVc(a, b, union);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Finds a slot for a carrier in a list, unless the list already holds a
+	 * 	subset of it or is full of carriers no bigger. The carrier is written
+	 * 	to the slot.
+	 *
+	 * @return The slot, or -1 if the carrier was not wanted
+	 */
+	private int insert(long[] sets, int count, int max, long[] carrier) {
+		int largest=-1;
+		int largestSize=-1;
+
+		for (int i=0; i<count; i++) {
+			if (subset(sets, i*words, carrier)) {
+				return -1;
+			}
+			int n=bits(sets, i*words);
+			if (n>largestSize) {
+				largest=i;
+				largestSize=n;
+			}
+		}
+
+		int slot=count;
+		if (count==max) {
+			if (bits(carrier, 0)>=largestSize) {
+				return -1;
+			}
+			slot=largest;
+		}
+
+		System.arraycopy(carrier, 0, sets, slot*words, words);
+		return slot;
+	}
+
+	/**
+	 * Drops the carriers in a list that contain the one in a given slot.
+	 *
+	 * @return The new length of the list
+	 */
+	private int compact(long[] sets, int[] keys, int count, int slot) {
+		int kept=0;
+
+		for (int i=0; i<count; i++) {
+			if (i!=slot && subsetOf(sets, slot*words, i*words)) {
+				continue;
+			}
+			if (kept!=i) {
+				System.arraycopy(sets, i*words, sets, kept*words, words);
+				if (keys!=null) {
+					keys[kept]=keys[i];
+				}
+			}
+			if (i==slot) {
+				slot=kept;
+			}
+			kept++;
+		}
+
+		return kept;
+	}
+
+	private void addPartner(int a, int b) {
+		if (partners[a]==null) {
+			partners[a]=new int[8];
+		} else if (partnerCount[a]==partners[a].length) {
+			partners[a]=Arrays.copyOf(partners[a], partnerCount[a]*2);
+		}
+		partners[a][partnerCount[a]++]=b;
+	}
+
+	/**
+	 * Gets the player's edge that a cell lies on, or -1.
+	 */
+	private int edgeOf(int cell) {
+		int x=cell%size;
+		int y=cell/size;
+
+		if (colour==Constants.WHITE) {
+			return y==0 ? first : y==size-1 ? second : -1;
+		}
+
+		return x==0 ? first : x==size-1 ? second : -1;
+	}
+
+	private int toCells(long[] sets, int off, int[] out) {
+		int count=0;
+
+		for (int w=0; w<words; w++) {
+			long bits=sets[off+w];
+			while (bits!=0) {
+				out[count++]=(w<<6)+Long.numberOfTrailingZeros(bits);
+				bits&=bits-1;
+			}
+		}
+
+		return count;
+	}
+
+	private static void set(long[] sets, int off, int cell) {
+		sets[off+(cell>>>6)]|=1L<<cell;
+	}
+
+	private boolean contains(long[] sets, int off, int node) {
+		return node<cells && (sets[off+(node>>>6)] & 1L<<node)!=0;
+	}
+
+	private boolean disjoint(long[] a, int offA, long[] b, int offB) {
+		for (int w=0; w<words; w++) {
+			if ((a[offA+w] & b[offB+w])!=0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Checks if the carrier at an offset is a subset of another carrier.
+	 */
+	private boolean subset(long[] sets, int off, long[] carrier) {
+		for (int w=0; w<words; w++) {
+			if ((sets[off+w] & ~carrier[w])!=0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Checks if one carrier in a list is a subset of another in it.
+	 */
+	private boolean subsetOf(long[] sets, int small, int big) {
+		for (int w=0; w<words; w++) {
+			if ((sets[small+w] & ~sets[big+w])!=0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private int bits(long[] sets, int off) {
+		int n=0;
+
+		for (int w=0; w<words; w++) {
+			n+=Long.bitCount(sets[off+w]);
+		}
+
+		return n;
+	}
+}
@@ -0,0 +1,45 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of positions. A position's hash is the
+ * 	exclusive or of the keys of its stones, so it can be kept up to date
+ * 	with a single xor as each stone is played or taken back.
+ *
+ * The keys are generated from a fixed seed for each board size, so the
+ * 	same position always has the same hash, even across runs.
+ *
+ * @author agent
+ */
+public class Zobrist {
+	// Xored into a position's hash when Black is to move.
+	public static final long BLACK_TO_MOVE=0x9e3779b97f4a7c15L;
+
+	private static final long[][] KEYS=new long[Position.MAX_SIZE+1][];
+
+	/**
+	 * Gets the stone keys for a board size. The key for a stone of colour c
+	 * 	on a cell is at index (c-1)*size*size+cell.
+	 *
+	 * @param size The length of a side of the board
+	 *
+	 * @return The shared key table, which must not be modified
+	 */
+	public static synchronized long[] forSize(int size) {
+		if (KEYS[size]==null) {
+			SplittableRandom random=new SplittableRandom(0x48455821L+size);
+			long[] keys=new long[2*size*size];
+
+			for (int i=0; i<keys.length; i++) {
+				keys[i]=random.nextLong();
+			}
+
+			KEYS[size]=keys;
+		}
+
+		return KEYS[size];
+	}
+}
@@ -0,0 +1,42 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that moving now reaches a search however early it comes.
+ *
+ * @author agent
+ */
+public class AsyncAITest {
+	private static AsyncAI slowAI() {
+		MCAI mcai=new MCAI(Constants.WHITE);
+		mcai.setTimeLimit(60000);
+		return new AsyncAI(mcai);
+	}
+
+	private static Position opened() {
+		Position board=new Position(7);
+		board.play(board.cell(3, 3), Constants.BLACK);
+		return board;
+	}
+
+	@Test
+	public void moveNowRightAfterARequestEndsItsSearch() throws Exception {
+		AsyncAI ai=slowAI();
+
+		for (int i=0; i<20; i++) {
+			CompletableFuture<Location> move=ai.requestMove(opened(), new Location(3, 3));
+			ai.moveNow();
+
+			Location loc=move.get(10, TimeUnit.SECONDS);
+			assertTrue(opened().isEmpty(opened().cell(loc.x, loc.y)));
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the union-find win tracker against a flood fill.
+ *
+ * @author agent
+ */
+public class ConnectivityTest {
+	private static int winner(Position board) {
+		if (Solver.connected(board, Constants.WHITE)) {
+			return Constants.WHITE;
+		}
+		return Solver.connected(board, Constants.BLACK) ? Constants.BLACK : Constants.EMPTY;
+	}
+
+	@Test
+	public void agreesWithAFloodFillAfterEveryStone() {
+		for (int size : new int[] {1, 2, 5, 8, 11}) {
+			SplittableRandom random=new SplittableRandom(size);
+
+			for (int game=0; game<20; game++) {
+				Position board=new Position(size);
+				Connectivity links=new Connectivity(size);
+				Connectivity rebuilt=new Connectivity(size);
+				int colour=game%2==0 ? Constants.WHITE : Constants.BLACK;
+
+				while (board.getEmptyCount()>0) {
+					int cell=board.getEmpty(random.nextInt(board.getEmptyCount()));
+					board.play(cell, colour);
+					links.place(cell, colour);
+					colour=colour==Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+
+					int expected=winner(board);
+					assertEquals(expected, links.getWinner());
+					assertEquals(expected==Constants.WHITE, links.hasConnected(Constants.WHITE));
+					assertEquals(expected==Constants.BLACK, links.hasConnected(Constants.BLACK));
+
+					rebuilt.reset(board);
+					assertEquals(expected, rebuilt.getWinner());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void aFullBoardHasOneWinner() {
+		SplittableRandom random=new SplittableRandom(7);
+
+		for (int game=0; game<200; game++) {
+			Position board=new Position(7);
+			while (board.getEmptyCount()>0) {
+				board.play(board.getEmpty(0), random.nextBoolean() ? Constants.WHITE : Constants.BLACK);
+			}
+
+			Connectivity links=new Connectivity(7);
+			links.reset(board);
+			assertEquals(Solver.connected(board, Constants.WHITE) ? Constants.WHITE : Constants.BLACK, links.getWinner());
+		}
+	}
+
+	@Test
+	public void copiesAreIndependent() {
+		Position board=new Position(5);
+		Connectivity links=new Connectivity(5);
+		for (int y=0; y<4; y++) {
+			board.play(board.cell(2, y), Constants.WHITE);
+			links.place(board.cell(2, y), Constants.WHITE);
+		}
+
+		Connectivity copy=new Connectivity(5);
+		copy.copyFrom(links);
+		copy.place(board.cell(2, 4), Constants.WHITE);
+
+		assertEquals(Constants.WHITE, copy.getWinner());
+		assertEquals(Constants.EMPTY, links.getWinner());
+	}
+}
@@ -0,0 +1,181 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writes game records and reads them back.
+ *
+ * @author agent
+ */
+public class GameRecordTest {
+	@TempDir
+	Path dir;
+
+	@Test
+	public void readsBackAGameWithStatistics() throws IOException {
+		Path file=dir.resolve("games");
+		int[] moves={24, 17, 31, 0, 48};
+		int[] visits={0, 1200, 70000, 3, Integer.MAX_VALUE};
+		double[] rates={-1, 0.5, 1, 0, 0.25};
+
+		try (GameRecordWriter writer=GameRecordWriter.open(file)) {
+			writer.write(7, "mcai:time=200", "Ünïcode", Constants.BLACK, moves, visits, rates, moves.length);
+		}
+
+		GameRecordReader reader=GameRecordReader.open(file);
+		assertTrue(reader.next());
+		assertEquals(7, reader.getSize());
+		assertEquals(Constants.BLACK, reader.getWinner());
+		assertEquals("mcai:time=200", reader.getPlayer(Constants.WHITE));
+		assertEquals("Ünïcode", reader.getPlayer(Constants.BLACK));
+		assertEquals(moves.length, reader.getMoveCount());
+		assertTrue(reader.hasStats());
+		for (int i=0; i<moves.length; i++) {
+			assertEquals(moves[i], reader.getMove(i));
+			assertEquals(visits[i], reader.getVisits(i));
+		}
+		assertEquals(-1, reader.getWinRate(0));
+		assertEquals(0.5, reader.getWinRate(1), 1e-4);
+		assertEquals(1, reader.getWinRate(2), 1e-4);
+		assertEquals(0, reader.getWinRate(3), 1e-4);
+		assertEquals(0.25, reader.getWinRate(4), 1e-4);
+		assertFalse(reader.next());
+	}
+
+	@Test
+	public void readsBackLargeBoardsWithoutStatistics() throws IOException {
+		Path file=dir.resolve("games");
+		int[] moves=new int[19*19];
+		for (int i=0; i<moves.length; i++) {
+			moves[i]=moves.length-1-i;
+		}
+
+		try (GameRecordWriter writer=GameRecordWriter.open(file)) {
+			writer.write(19, "a", "b", Constants.EMPTY, moves, null, null, moves.length);
+		}
+
+		GameRecordReader reader=GameRecordReader.open(file);
+		assertTrue(reader.next());
+		assertEquals(19, reader.getSize());
+		assertEquals(Constants.EMPTY, reader.getWinner());
+		assertFalse(reader.hasStats());
+		assertEquals(moves.length, reader.getMoveCount());
+		for (int i=0; i<moves.length; i++) {
+			assertEquals(moves[i], reader.getMove(i));
+		}
+		assertEquals(0, reader.getVisits(0));
+		assertEquals(-1, reader.getWinRate(0));
+	}
+
+	@Test
+	public void appendsToAnExistingFile() throws IOException {
+		Path file=dir.resolve("games");
+		for (int game=0; game<3; game++) {
+			try (GameRecordWriter writer=GameRecordWriter.open(file)) {
+				for (int i=0; i<100; i++) {
+					int[] moves=new int[1+(game*100+i)%49];
+					Arrays.fill(moves, i%49);
+					writer.write(7, "w"+game, "b"+i, 1+i%2, moves, null, null, moves.length);
+				}
+			}
+		}
+
+		GameRecordReader reader=GameRecordReader.open(file);
+		for (int pass=0; pass<2; pass++) {
+			int games=0;
+			while (reader.next()) {
+				int game=games/100;
+				int i=games%100;
+				assertEquals("w"+game, reader.getPlayer(Constants.WHITE));
+				assertEquals("b"+i, reader.getPlayer(Constants.BLACK));
+				assertEquals(1+i%2, reader.getWinner());
+				assertEquals(1+(game*100+i)%49, reader.getMoveCount());
+				assertEquals(i%49, reader.getMove(reader.getMoveCount()-1));
+				games++;
+			}
+			assertEquals(300, games);
+			reader.rewind();
+		}
+	}
+
+	@Test
+	public void readsAcrossSegmentBoundaries() throws IOException {
+		Path file=dir.resolve("games");
+		try (GameRecordWriter writer=GameRecordWriter.open(file)) {
+			for (int i=0; i<20; i++) {
+				int size=i%2==0 ? 7 : 19;
+				int[] moves=new int[1+i*7%(size*size)];
+				int[] visits=new int[moves.length];
+				double[] rates=new double[moves.length];
+				for (int m=0; m<moves.length; m++) {
+					moves[m]=(m*31+i)%(size*size);
+					visits[m]=m*100003+i;
+					rates[m]=m%5/4.0;
+				}
+				// Long names take two bytes of varint to give their length.
+				writer.write(size, "w".repeat(i*13), "b"+i, 1+i%2, moves, visits, rates, moves.length);
+			}
+		}
+
+		for (int bits=3; bits<8; bits++) {
+			GameRecordReader whole=GameRecordReader.open(file);
+			GameRecordReader pieces=GameRecordReader.open(file, bits);
+			int games=0;
+			while (whole.next()) {
+				assertTrue(pieces.next(), "game "+games+" in segments of "+(1<<bits));
+				assertEquals(whole.getSize(), pieces.getSize());
+				assertEquals(whole.getWinner(), pieces.getWinner());
+				assertEquals(whole.getPlayer(Constants.WHITE), pieces.getPlayer(Constants.WHITE));
+				assertEquals(whole.getPlayer(Constants.BLACK), pieces.getPlayer(Constants.BLACK));
+				assertEquals(whole.getMoveCount(), pieces.getMoveCount());
+				for (int m=0; m<whole.getMoveCount(); m++) {
+					assertEquals(whole.getMove(m), pieces.getMove(m));
+					assertEquals(whole.getVisits(m), pieces.getVisits(m));
+					assertEquals(whole.getWinRate(m), pieces.getWinRate(m));
+				}
+				games++;
+			}
+			assertFalse(pieces.next());
+			assertEquals(20, games);
+		}
+	}
+
+	@Test
+	public void stopsAtAGameCutShort() throws IOException {
+		Path file=dir.resolve("games");
+		int[] moves={1, 2, 3, 4};
+		try (GameRecordWriter writer=GameRecordWriter.open(file)) {
+			writer.write(5, "a", "b", Constants.WHITE, moves, null, null, moves.length);
+			writer.write(5, "c", "d", Constants.BLACK, moves, null, null, moves.length);
+		}
+		byte[] bytes=Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length-3));
+
+		GameRecordReader reader=GameRecordReader.open(file);
+		assertTrue(reader.next());
+		assertEquals("a", reader.getPlayer(Constants.WHITE));
+		assertFalse(reader.next());
+	}
+
+	@Test
+	public void rejectsOtherFiles() throws IOException {
+		Path file=dir.resolve("notes");
+		Files.write(file, "not a game record".getBytes());
+
+		assertThrows(IOException.class, () -> GameRecordReader.open(file));
+		assertThrows(IOException.class, () -> GameRecordWriter.open(file));
+	}
+}
@@ -0,0 +1,82 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks on small positions, solved exactly, that filling in dead and
+ * 	captured cells never changes who wins and never throws away the only
+ * 	winning moves.
+ *
+ * @author agent
+ */
+public class InferiorCellsTest {
+	private static final int SIZE=4;
+
+	@Test
+	public void fillingInKeepsTheWinner() {
+		SplittableRandom random=new SplittableRandom(21);
+		Solver solver=new Solver();
+		InferiorCells inferior=new InferiorCells(SIZE);
+		int[] moves=new int[SIZE*SIZE];
+		int filledIn=0;
+
+		for (int test=0; test<200; test++) {
+			Position board=new Position(SIZE);
+			int stones=5+random.nextInt(6);
+			for (int i=0; i<stones; i++) {
+				board.play(board.getEmpty(random.nextInt(board.getEmptyCount())),
+					random.nextBoolean() ? Constants.WHITE : Constants.BLACK);
+			}
+
+			int count=inferior.analyse(board, moves);
+			Position filled=inferior.getFilled();
+			filledIn+=filled.getCellCount()-filled.getEmptyCount()-(board.getCellCount()-board.getEmptyCount());
+
+			for (int cell=0; cell<board.getCellCount(); cell++) {
+				if (!board.isEmpty(cell)) {
+					assertEquals(board.get(cell), filled.get(cell));
+				}
+			}
+			assertEquals(filled.getEmptyCount(), count);
+			for (int i=0; i<count; i++) {
+				assertTrue(filled.isEmpty(moves[i]));
+			}
+
+			for (int toMove : new int[] {Constants.WHITE, Constants.BLACK}) {
+				boolean wins=solver.wins(board, toMove);
+				assertEquals(wins, solver.wins(filled, toMove));
+
+				int winner=inferior.getWinner();
+				if (winner!=Constants.EMPTY) {
+					assertEquals(winner==toMove, wins);
+				} else if (wins) {
+					assertTrue(hasWinningMove(solver, board, toMove, moves, count));
+				}
+			}
+		}
+
+		// Make sure the positions gave the analysis something to do.
+		assertTrue(filledIn>100);
+	}
+
+	private static boolean hasWinningMove(Solver solver, Position board, int toMove, int[] moves, int count) {
+		int other=toMove==Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+		for (int i=0; i<count; i++) {
+			board.play(moves[i], toMove);
+			boolean win=!solver.wins(board, other);
+			board.undo(moves[i]);
+			if (win) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
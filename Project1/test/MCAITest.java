@@ -0,0 +1,144 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that pruning a full search tree keeps what the search learnt.
+ *
+ * @author agent
+ */
+public class MCAITest {
+	private static final int SIZE=5;
+	private static final int NODES=3000;
+
+	private static class Pending {
+		final int node;
+		final Position board;
+		final int toMove;
+		final int depth;
+
+		Pending(int node, Position board, int toMove, int depth) {
+			this.node=node;
+			this.board=board;
+			this.toMove=toMove;
+			this.depth=depth;
+		}
+	}
+
+	/**
+	 * Grows a tree breadth first, the way the search lays it out, with
+	 * 	visits that fall off with depth, until the arena is full. Some edges
+	 * 	are left untried and some nodes are proven.
+	 */
+	private static void populate(NodeArena arena, int root, SplittableRandom random) {
+		ArrayDeque<Pending> queue=new ArrayDeque<Pending>();
+		queue.add(new Pending(root, new Position(SIZE), Constants.WHITE, 0));
+
+		while (!queue.isEmpty()) {
+			Pending p=queue.poll();
+			int visits=1+random.nextInt(Math.max(1, 100000>>(2*p.depth)));
+			arena.addStats(p.node, visits, random.nextInt(2*visits+1));
+			if (random.nextInt(10)==0) {
+				arena.setProof(p.node, random.nextBoolean() ? NodeArena.PROVEN_WIN : NodeArena.PROVEN_LOSS);
+			}
+
+			int count=p.board.getEmptyCount();
+			if (count==0 || !arena.hasRoom(count)
+					|| !arena.changeState(p.node, NodeArena.LEAF, NodeArena.EXPANDING)) {
+				continue;
+			}
+			long first=arena.newEdges(count);
+			for (int i=0; i<count; i++) {
+				arena.setEdge(first+i, p.board.toCanonical(p.board.getEmpty(i)), -1);
+				arena.addAmaf(first+i, 1+i, i);
+			}
+			arena.setEdges(p.node, first, count, count, 0);
+
+			int tried=1+random.nextInt(count);
+			for (int i=0; i<tried && arena.claimEdge(p.node, i); i++) {
+				int child=arena.newNode();
+				if (child<0) {
+					break;
+				}
+				arena.setEdgeTarget(first+i, child);
+
+				Position board=new Position(p.board);
+				board.play(p.board.toCanonical(arena.getEdgeMove(first+i)), p.toMove);
+				queue.add(new Pending(child, board, 3-p.toMove, p.depth+1));
+			}
+		}
+	}
+
+	/**
+	 * Walks the original tree and its pruned copy side by side.
+	 *
+	 * @return The number of nodes collapsed into leaves
+	 */
+	private static int assertKept(NodeArena from, int node, NodeArena to, int copy) {
+		assertEquals(from.getStats(node), to.getStats(copy), "stats of node "+node);
+		assertEquals(from.getProof(node), to.getProof(copy), "proof of node "+node);
+		if (to.getState(copy)!=NodeArena.EXPANDED) {
+			return from.getState(node)==NodeArena.EXPANDED ? 1 : 0;
+		}
+
+		long edges=from.getEdges(node);
+		long kept=to.getEdges(copy);
+		assertEquals(NodeArena.edgeCount(edges), NodeArena.edgeCount(kept));
+		assertEquals(from.getMoveCount(node), to.getMoveCount(copy));
+
+		// The children come first, in their old order, then the untried
+		// 	edges, also in their old order.
+		int collapsed=0;
+		long e=NodeArena.firstEdge(kept);
+		for (int pass=0; pass<2; pass++) {
+			for (int i=0; i<NodeArena.edgeCount(edges); i++) {
+				long edge=NodeArena.firstEdge(edges)+i;
+				int target=from.getEdgeTarget(edge);
+				if ((target>=0)==(pass==0)) {
+					assertEquals(from.getEdgeMove(edge), to.getEdgeMove(e));
+					assertEquals(from.getAmaf(edge), to.getAmaf(e));
+					if (target>=0) {
+						collapsed+=assertKept(from, target, to, to.getEdgeTarget(e));
+					} else {
+						assertEquals(-1, to.getEdgeTarget(e));
+					}
+					e++;
+				}
+			}
+			if (pass==0) {
+				assertEquals(e-NodeArena.firstEdge(kept), to.getWidened(copy));
+			}
+		}
+
+		return collapsed;
+	}
+
+	@Test
+	public void pruningKeepsStatsProofsAndChildOrder() {
+		for (boolean offHeap : new boolean[] {false, true}) {
+			MCAI.Tree tree=new MCAI.Tree(SIZE, NODES, offHeap);
+			tree.reset(new Position(SIZE), Constants.WHITE);
+			NodeArena full=tree.arena;
+			populate(full, tree.root, new SplittableRandom(offHeap ? 2 : 1));
+			int root=tree.root;
+			assertTrue(full.getNodeCount()>NODES*9/10, "filled to "+full.getNodeCount());
+
+			MCAI.prune(tree);
+
+			assertSame(full, tree.spare);
+			assertNotSame(full, tree.arena);
+			assertTrue(tree.arena.getNodeCount()<=NODES/2, "pruned to "+tree.arena.getNodeCount());
+			assertTrue(assertKept(full, root, tree.arena, tree.root)>0);
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the heap and off-heap arenas behave the same.
+ *
+ * @author agent
+ */
+public class NodeArenaTest {
+	private static final int NODES=1000;
+	private static final int EDGES=5000;
+
+	private static void assertSame(NodeArena heap, NodeArena offHeap) {
+		assertEquals(heap.getNodeCount(), offHeap.getNodeCount());
+		assertEquals(heap.getEdgesInUse(), offHeap.getEdgesInUse());
+
+		for (int n=0; n<heap.getNodeCount(); n++) {
+			assertEquals(heap.getStats(n), offHeap.getStats(n), "stats of node "+n);
+			assertEquals(heap.getState(n), offHeap.getState(n), "state of node "+n);
+			assertEquals(heap.getProof(n), offHeap.getProof(n), "proof of node "+n);
+			assertEquals(heap.getWidened(n), offHeap.getWidened(n), "widened of node "+n);
+			assertEquals(heap.getCopy(n), offHeap.getCopy(n), "copy of node "+n);
+			if (heap.getState(n)==NodeArena.EXPANDED) {
+				assertEquals(heap.getEdges(n), offHeap.getEdges(n), "edges of node "+n);
+				assertEquals(heap.getMoveCount(n), offHeap.getMoveCount(n), "moves of node "+n);
+			}
+		}
+		for (long e=0; e<heap.getEdgesInUse(); e++) {
+			assertEquals(heap.getEdgeMove(e), offHeap.getEdgeMove(e), "move of edge "+e);
+			assertEquals(heap.getEdgeTarget(e), offHeap.getEdgeTarget(e), "target of edge "+e);
+			assertEquals(heap.getAmaf(e), offHeap.getAmaf(e), "amaf of edge "+e);
+		}
+	}
+
+	/**
+	 * Grows a tree the way the search does, with the same random choices
+	 * 	in both arenas, until they are full.
+	 */
+	private static void grow(NodeArena heap, NodeArena offHeap, SplittableRandom random) {
+		for (NodeArena arena : new NodeArena[] {heap, offHeap}) {
+			assertEquals(0, arena.newNode());
+		}
+
+		for (int step=0; step<20000; step++) {
+			int n=random.nextInt(heap.getNodeCount());
+			int count=1+random.nextInt(12);
+			int op=random.nextInt(7);
+			int visits=random.nextInt(100);
+			int halfWins=random.nextInt(2*visits+1);
+			int copy=random.nextInt(-1, NODES);
+
+			for (NodeArena arena : new NodeArena[] {heap, offHeap}) {
+				switch (op) {
+				case 0:
+					if (arena.getState(n)==NodeArena.LEAF && arena.hasRoom(count)
+							&& arena.changeState(n, NodeArena.LEAF, NodeArena.EXPANDING)) {
+						long first=arena.newEdges(count);
+						for (int i=0; i<count; i++) {
+							arena.setEdge(first+i, (n+i)%49, -1);
+						}
+						arena.setEdges(n, first, count, 2*count, 0);
+					}
+					break;
+				case 1:
+					int wide=arena.getWidened(n);
+					long edges=arena.getEdges(n);
+					if (arena.getState(n)==NodeArena.EXPANDED && wide<NodeArena.edgeCount(edges)
+							&& arena.claimEdge(n, wide)) {
+						int child=arena.newNode();
+						if (child>=0) {
+							arena.setEdgeTarget(NodeArena.firstEdge(edges)+wide, child);
+						}
+					}
+					break;
+				case 2:
+					arena.addStats(n, visits, halfWins);
+					break;
+				case 3:
+					if (arena.getState(n)==NodeArena.EXPANDED) {
+						edges=arena.getEdges(n);
+						arena.addAmaf(NodeArena.firstEdge(edges)+visits%NodeArena.edgeCount(edges), visits, halfWins);
+					}
+					break;
+				case 4:
+					if (arena.getProof(n)==NodeArena.UNPROVEN) {
+						arena.setProof(n, visits%2==0 ? NodeArena.PROVEN_WIN : NodeArena.PROVEN_LOSS);
+					}
+					break;
+				case 6:
+					edges=arena.getEdges(n);
+					int size=NodeArena.edgeCount(edges);
+					if (arena.getState(n)==NodeArena.EXPANDED && size<arena.getMoveCount(n)
+							&& arena.getWidened(n)==size && arena.claimEdge(n, size)) {
+						long old=NodeArena.firstEdge(edges);
+						long block=arena.newEdges(2*size);
+						if (block>=0) {
+							for (int i=0; i<size; i++) {
+								arena.setEdge(block+i, arena.getEdgeMove(old+i), arena.getEdgeTarget(old+i));
+								arena.setAmaf(block+i, arena.getAmaf(old+i));
+							}
+							for (int i=size; i<2*size; i++) {
+								arena.setEdge(block+i, (n+i)%49, -1);
+							}
+							arena.growEdges(n, block, 2*size, 2*size);
+						}
+					}
+					break;
+				default:
+					arena.setCopy(n, copy);
+					break;
+				}
+			}
+		}
+	}
+
+	@Test
+	public void offHeapMatchesHeapOverTheSameOperations() {
+		for (int seed=0; seed<5; seed++) {
+			NodeArena heap=new HeapNodeArena(NODES, EDGES);
+			NodeArena offHeap=new OffHeapNodeArena(NODES, EDGES);
+			SplittableRandom random=new SplittableRandom(seed);
+
+			grow(heap, offHeap, random);
+			assertSame(heap, offHeap);
+
+			// A reset arena hands out the same records again, cleared.
+			heap.reset();
+			offHeap.reset();
+			grow(heap, offHeap, random);
+			assertSame(heap, offHeap);
+		}
+	}
+
+	@Test
+	public void packedEdgesKeepBothHalves() {
+		long first=HeapNodeArena.MAX_EDGES*100;
+		long edges=NodeArena.packEdges(first, 63*63);
+
+		assertEquals(first, NodeArena.firstEdge(edges));
+		assertEquals(63*63, NodeArena.edgeCount(edges));
+	}
+
+	@Test
+	public void bothRefuseToOverfill() {
+		for (NodeArena arena : new NodeArena[] {new HeapNodeArena(2, 10), new OffHeapNodeArena(2, 10)}) {
+			assertEquals(0, arena.newNode());
+			assertEquals(1, arena.newNode());
+			assertEquals(-1, arena.newNode());
+			assertEquals(2, arena.getNodeCount());
+
+			assertEquals(0, arena.newEdges(6));
+			assertEquals(false, arena.hasRoom(5));
+			assertEquals(-1, arena.newEdges(5));
+		}
+	}
+
+	@Test
+	public void addingStatsGivesTheNewTotals() {
+		for (NodeArena arena : new NodeArena[] {new HeapNodeArena(1, 1), new OffHeapNodeArena(1, 1)}) {
+			int n=arena.newNode();
+			arena.addStats(n, NodeArena.MAX_VISITS-3, 2*(NodeArena.MAX_VISITS-3));
+			long stats=arena.addStats(n, 3, 5);
+
+			assertEquals(stats, arena.getStats(n));
+			assertEquals(NodeArena.MAX_VISITS, NodeArena.visits(stats));
+			assertEquals(NodeArena.MAX_VISITS-0.5, NodeArena.wins(stats));
+		}
+	}
+
+	@Test
+	public void heapArenaRejectsMoreEdgesThanAnArrayHolds() {
+		assertThrows(IllegalArgumentException.class, () -> new HeapNodeArena(NODES, HeapNodeArena.MAX_EDGES+1));
+	}
+}
@@ -0,0 +1,107 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writes opening books and reads them back.
+ *
+ * @author agent
+ */
+public class OpeningBookTest {
+	private static final int SIZE=7;
+
+	@TempDir
+	Path dir;
+
+	/**
+	 * Writes a book with one entry: the answer to a corner stone.
+	 */
+	private Path writeCornerBook() throws IOException {
+		Position board=new Position(SIZE);
+		board.play(board.cell(0, 0), Constants.WHITE);
+		int answer=board.cell(1, 1);
+
+		// A record is filed under a second, unrelated position too, so that
+		// 	the lookup has to search past it.
+		Position other=new Position(SIZE);
+		other.play(other.cell(3, 3), Constants.WHITE);
+
+		long[] keys={other.getKey(Constants.BLACK), board.getKey(Constants.BLACK)};
+		int[] moves={other.toCanonical(other.cell(3, 4)), board.toCanonical(answer)};
+		int[] games={7, 42};
+
+		Path file=dir.resolve("book");
+		OpeningBook.write(file, SIZE, keys, moves, games, keys.length);
+		return file;
+	}
+
+	@Test
+	public void looksUpWhatWasWritten() throws IOException {
+		OpeningBook book=OpeningBook.open(writeCornerBook());
+
+		assertEquals(SIZE, book.getSize());
+		assertEquals(2, book.getCount());
+
+		Position board=new Position(SIZE);
+		board.play(board.cell(0, 0), Constants.WHITE);
+		assertEquals(board.cell(1, 1), book.lookup(board, Constants.BLACK));
+
+		Position other=new Position(SIZE);
+		other.play(other.cell(3, 3), Constants.WHITE);
+		assertEquals(other.cell(3, 4), book.lookup(other, Constants.BLACK));
+	}
+
+	@Test
+	public void answersTheRotatedPositionWithTheRotatedMove() throws IOException {
+		OpeningBook book=OpeningBook.open(writeCornerBook());
+
+		Position rotated=new Position(SIZE);
+		rotated.play(rotated.cell(SIZE-1, SIZE-1), Constants.WHITE);
+		assertEquals(rotated.cell(SIZE-2, SIZE-2), book.lookup(rotated, Constants.BLACK));
+	}
+
+	@Test
+	public void missesPositionsNotInTheBook() throws IOException {
+		OpeningBook book=OpeningBook.open(writeCornerBook());
+
+		Position board=new Position(SIZE);
+		board.play(board.cell(0, 0), Constants.WHITE);
+		assertEquals(-1, book.lookup(board, Constants.WHITE));
+
+		board.play(board.cell(2, 5), Constants.BLACK);
+		assertEquals(-1, book.lookup(board, Constants.BLACK));
+	}
+
+	@Test
+	public void opensAnEmptyBook() throws IOException {
+		Path file=dir.resolve("empty");
+		OpeningBook.write(file, SIZE, new long[0], new int[0], new int[0], 0);
+		OpeningBook book=OpeningBook.open(file);
+
+		assertEquals(0, book.getCount());
+		assertEquals(-1, book.lookup(new Position(SIZE), Constants.WHITE));
+	}
+
+	@Test
+	public void rejectsOtherFiles() throws IOException {
+		Path file=dir.resolve("notes");
+		Files.write(file, "not an opening book at all".getBytes());
+		assertThrows(IOException.class, () -> OpeningBook.open(file));
+
+		Path cut=writeCornerBook();
+		byte[] bytes=Files.readAllBytes(cut);
+		Files.write(cut, Arrays.copyOf(bytes, bytes.length-4));
+		assertThrows(IOException.class, () -> OpeningBook.open(cut));
+	}
+}
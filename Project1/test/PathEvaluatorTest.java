@@ -0,0 +1,108 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the layered breadth-first search against Dijkstra's algorithm.
+ *
+ * @author agent
+ */
+public class PathEvaluatorTest {
+	/**
+	 * Works out the cost of reaching every cell from one of a player's
+	 * 	edges by Dijkstra's algorithm, paying for each cell on arrival.
+	 */
+	private static int[] dijkstra(Position board, int player, boolean fromFar) {
+		int size=board.getSize();
+		int cells=size*size;
+		HexTopology topology=HexTopology.forSize(size);
+		int[] neighbours=topology.getNeighbours();
+		int[] bridges=topology.getBridges();
+		int[] d=new int[cells];
+		boolean[] done=new boolean[cells];
+		Arrays.fill(d, PathEvaluator.UNREACHABLE);
+
+		int edge=fromFar ? size-1 : 0;
+		for (int i=0; i<size; i++) {
+			int cell=player==Constants.WHITE ? edge*size+i : i*size+edge;
+			d[cell]=Math.min(d[cell], cost(board, player, cell));
+		}
+
+		while (true) {
+			int cell=-1;
+			for (int c=0; c<cells; c++) {
+				if (!done[c] && d[c]<PathEvaluator.UNREACHABLE && (cell<0 || d[c]<d[cell])) {
+					cell=c;
+				}
+			}
+			if (cell<0) {
+				return d;
+			}
+			done[cell]=true;
+
+			for (int i=0; i<HexTopology.DIRECTIONS; i++) {
+				int base=cell*HexTopology.DIRECTIONS;
+				int n=neighbours[base+i];
+				int b=bridges[base+i];
+				if (n>=0) {
+					d[n]=Math.min(d[n], d[cell]+cost(board, player, n));
+				}
+				if (b>=0 && board.isEmpty(n) && board.isEmpty(neighbours[base+HexTopology.next(i)])) {
+					d[b]=Math.min(d[b], d[cell]+cost(board, player, b));
+				}
+			}
+		}
+	}
+
+	private static int cost(Position board, int player, int cell) {
+		int c=board.get(cell);
+		return c==player ? 0 : c==Constants.EMPTY ? 1 : PathEvaluator.UNREACHABLE;
+	}
+
+	private static Position randomPosition(int size, SplittableRandom random) {
+		Position board=new Position(size);
+		int stones=random.nextInt(size*size+1);
+		for (int i=0; i<stones; i++) {
+			int cell=board.getEmpty(random.nextInt(board.getEmptyCount()));
+			board.play(cell, random.nextBoolean() ? Constants.WHITE : Constants.BLACK);
+		}
+		return board;
+	}
+
+	@Test
+	public void agreesWithDijkstraOnRandomPositions() {
+		for (int size : new int[] {1, 2, 5, 8, 11}) {
+			SplittableRandom random=new SplittableRandom(size);
+			int[] costs=new int[size*size];
+
+			for (int game=0; game<200; game++) {
+				Position board=randomPosition(size, random);
+
+				for (int player : new int[] {Constants.WHITE, Constants.BLACK}) {
+					int[] near=dijkstra(board, player, false);
+					int[] far=dijkstra(board, player, true);
+
+					int expected=PathEvaluator.UNREACHABLE;
+					for (int i=0; i<size; i++) {
+						expected=Math.min(expected, near[player==Constants.WHITE ? (size-1)*size+i : i*size+size-1]);
+					}
+					assertEquals(expected, PathEvaluator.distance(board, player), "distance in game "+game+" on size "+size);
+
+					PathEvaluator.connectionCosts(board, player, costs);
+					for (int cell=0; cell<size*size; cell++) {
+						int through=near[cell]==PathEvaluator.UNREACHABLE || far[cell]==PathEvaluator.UNREACHABLE
+							? PathEvaluator.UNREACHABLE : near[cell]+far[cell]-cost(board, player, cell);
+						assertEquals(through, costs[cell], "cost of cell "+cell+" in game "+game+" on size "+size);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that positions keep their hashes and empty cells in step with
+ * 	their stones, and that the canonical keys ignore turning the board
+ * 	round.
+ *
+ * @author agent
+ */
+public class PositionTest {
+	private static final int SIZE=9;
+
+	/**
+	 * Fills a share of a board with random stones, alternating colours.
+	 */
+	private static Position randomPosition(long seed, int stones) {
+		SplittableRandom random=new SplittableRandom(seed);
+		Position board=new Position(SIZE);
+		int colour=Constants.WHITE;
+
+		for (int i=0; i<stones; i++) {
+			board.play(board.getEmpty(random.nextInt(board.getEmptyCount())), colour);
+			colour=colour==Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+		}
+
+		return board;
+	}
+
+	private static Position rotate(Position board) {
+		Position rotated=new Position(board.getSize());
+		for (int cell=0; cell<board.getCellCount(); cell++) {
+			if (!board.isEmpty(cell)) {
+				rotated.play(board.rotate(cell), board.get(cell));
+			}
+		}
+
+		return rotated;
+	}
+
+	@Test
+	public void rotatedPositionsShareTheirKeys() {
+		for (int seed=0; seed<50; seed++) {
+			Position board=randomPosition(seed, seed%30);
+			Position rotated=rotate(board);
+
+			assertEquals(board.getCanonicalHash(), rotated.getCanonicalHash());
+			assertEquals(board.getKey(Constants.WHITE), rotated.getKey(Constants.WHITE));
+			assertEquals(board.getKey(Constants.BLACK), rotated.getKey(Constants.BLACK));
+			assertNotEquals(board.getKey(Constants.WHITE), board.getKey(Constants.BLACK));
+		}
+	}
+
+	@Test
+	public void canonicalCellsAgreeAcrossRotations() {
+		for (int seed=0; seed<50; seed++) {
+			Position board=randomPosition(seed, 1+seed%30);
+			Position rotated=rotate(board);
+
+			for (int cell=0; cell<board.getCellCount(); cell++) {
+				assertEquals(board.toCanonical(cell), rotated.toCanonical(board.rotate(cell)));
+				assertEquals(cell, board.toCanonical(board.toCanonical(cell)));
+			}
+		}
+	}
+
+	@Test
+	public void differentPositionsGetDifferentKeys() {
+		Position a=new Position(SIZE);
+		a.play(a.cell(2, 3), Constants.WHITE);
+		Position b=new Position(SIZE);
+		b.play(b.cell(3, 2), Constants.WHITE);
+		Position c=new Position(SIZE);
+		c.play(c.cell(2, 3), Constants.BLACK);
+
+		assertNotEquals(a.getKey(Constants.BLACK), b.getKey(Constants.BLACK));
+		assertNotEquals(a.getKey(Constants.BLACK), c.getKey(Constants.BLACK));
+	}
+
+	@Test
+	public void undoRestoresThePosition() {
+		Position board=randomPosition(1, 20);
+		Position before=new Position(board);
+		SplittableRandom random=new SplittableRandom(2);
+		int[] played=new int[30];
+
+		for (int i=0; i<played.length; i++) {
+			played[i]=board.getEmpty(random.nextInt(board.getEmptyCount()));
+			board.play(played[i], i%2==0 ? Constants.WHITE : Constants.BLACK);
+		}
+		for (int i=played.length-1; i>=0; i--) {
+			board.undo(played[i]);
+		}
+
+		assertEquals(before, board);
+		assertEquals(before.getHash(), board.getHash());
+		assertEquals(before.getCanonicalHash(), board.getCanonicalHash());
+		assertEquals(before.getEmptyCount(), board.getEmptyCount());
+		for (int i=0; i<board.getEmptyCount(); i++) {
+			assertTrue(board.isEmpty(board.getEmpty(i)));
+		}
+	}
+
+	@Test
+	public void emptyCellsTrackTheStones() {
+		Position board=randomPosition(3, 40);
+		int empty=0;
+
+		for (int cell=0; cell<board.getCellCount(); cell++) {
+			assertEquals(board.get(cell)==Constants.EMPTY, board.isEmpty(cell));
+			if (board.isEmpty(cell)) {
+				empty++;
+			}
+		}
+		assertEquals(empty, board.getEmptyCount());
+	}
+
+	@Test
+	public void equalPositionsHaveEqualHashCodes() {
+		Position board=randomPosition(4, 25);
+		Position copy=new Position(board);
+
+		assertEquals(board, copy);
+		assertEquals(board.hashCode(), copy.hashCode());
+
+		copy.play(copy.getEmpty(0), Constants.WHITE);
+		assertNotEquals(board, copy);
+		assertFalse(board.equals("not a position"));
+	}
+
+	@Test
+	public void playsTheLargestSizeAndRejectsLarger() {
+		Position board=new Position(Position.MAX_SIZE);
+		int corner=Position.MAX_SIZE*Position.MAX_SIZE-1;
+		board.play(corner, Constants.BLACK);
+		assertEquals(Constants.BLACK, board.get(corner));
+		assertEquals(corner+1, HexTopology.forSize(Position.MAX_SIZE).getNeighbours().length/HexTopology.DIRECTIONS);
+
+		assertThrows(IllegalArgumentException.class, () -> new Position(Position.MAX_SIZE+1));
+		assertThrows(IllegalArgumentException.class, () -> new Position(0));
+	}
+}
@@ -0,0 +1,103 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.util.HashMap;
+
+/**
+ * Solves small positions exactly, for checking the shortcuts the search
+ * 	takes against. Connections are found with a plain flood fill over the
+ * 	six neighbours of each cell, without any of the game's own classes
+ * 	but Position.
+ *
+ * @author agent
+ */
+class Solver {
+	private static final int[] DX={-1, 1, 0, 0, -1, 1};
+	private static final int[] DY={0, 0, -1, 1, -1, 1};
+
+	private final HashMap<Long, Boolean> solved=new HashMap<Long, Boolean>();
+
+	/**
+	 * Checks if a player has joined their edges: White top to bottom, Black
+	 * 	left to right.
+	 *
+	 * @param board The position
+	 * @param colour The player
+	 *
+	 * @return true if the player is connected
+	 */
+	static boolean connected(Position board, int colour) {
+		int size=board.getSize();
+		boolean[] seen=new boolean[size*size];
+		int[] stack=new int[size*size];
+		int top=0;
+
+		for (int i=0; i<size; i++) {
+			int cell=colour==Constants.WHITE ? board.cell(i, 0) : board.cell(0, i);
+			if (board.get(cell)==colour) {
+				seen[cell]=true;
+				stack[top++]=cell;
+			}
+		}
+
+		while (top>0) {
+			int cell=stack[--top];
+			int x=board.x(cell);
+			int y=board.y(cell);
+			if ((colour==Constants.WHITE ? y : x)==size-1) {
+				return true;
+			}
+
+			for (int d=0; d<DX.length; d++) {
+				int nx=x+DX[d];
+				int ny=y+DY[d];
+				if (nx>=0 && ny>=0 && nx<size && ny<size) {
+					int n=board.cell(nx, ny);
+					if (!seen[n] && board.get(n)==colour) {
+						seen[n]=true;
+						stack[top++]=n;
+					}
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Checks if the player to move wins with best play on both sides.
+	 *
+	 * @param board The position, which is left as it was
+	 * @param toMove The player to move
+	 *
+	 * @return true if the player to move wins
+	 */
+	boolean wins(Position board, int toMove) {
+		int other=toMove==Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+		if (connected(board, toMove)) {
+			return true;
+		}
+		if (connected(board, other)) {
+			return false;
+		}
+
+		long key=board.getKey(toMove);
+		Boolean known=solved.get(key);
+		if (known!=null) {
+			return known;
+		}
+
+		boolean win=false;
+		for (int cell=0; cell<board.getCellCount() && !win; cell++) {
+			if (board.isEmpty(cell)) {
+				board.play(cell, toMove);
+				win=!wins(board, other);
+				board.undo(cell);
+			}
+		}
+
+		solved.put(key, win);
+		return win;
+	}
+}
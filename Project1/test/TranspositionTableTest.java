@@ -0,0 +1,140 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Stores positions in the transposition table and finds them again.
+ *
+ * @author agent
+ */
+public class TranspositionTableTest {
+	// Keys with nothing in their top half and their two lowest bits clear
+	// 	all land in the first bucket of a small table.
+	private static long firstBucket(int i) {
+		return (long)i<<16;
+	}
+
+	@Test
+	public void findsWhatWasStored() {
+		TranspositionTable table=new TranspositionTable(1<<12, n -> n);
+		SplittableRandom random=new SplittableRandom(1);
+		long[] keys=new long[100];
+
+		for (int i=0; i<keys.length; i++) {
+			keys[i]=random.nextLong();
+			table.put(keys[i], i);
+		}
+		for (int i=0; i<keys.length; i++) {
+			assertEquals(i, table.get(keys[i]));
+		}
+		assertEquals(-1, table.get(random.nextLong()));
+		assertEquals(keys.length, table.getHits());
+		assertEquals(1, table.getMisses());
+
+		// Storing a key again overwrites its entry in place.
+		table.put(keys[0], 500);
+		assertEquals(500, table.get(keys[0]));
+		assertEquals(0, table.getReplacements());
+
+		table.clear();
+		assertEquals(-1, table.get(keys[1]));
+	}
+
+	@Test
+	public void replacesTheLightestEntryInAFullBucket() {
+		int[] weights={30, 10, 40, 20, 50};
+		TranspositionTable table=new TranspositionTable(16, n -> weights[n]);
+
+		for (int i=0; i<4; i++) {
+			table.put(firstBucket(i+1), i);
+		}
+		table.put(firstBucket(5), 4);
+
+		assertEquals(1, table.getReplacements());
+		assertEquals(-1, table.get(firstBucket(2)));
+		assertEquals(0, table.get(firstBucket(1)));
+		assertEquals(2, table.get(firstBucket(3)));
+		assertEquals(3, table.get(firstBucket(4)));
+		assertEquals(4, table.get(firstBucket(5)));
+
+		// Now the entry for value 3 is the lightest.
+		table.put(firstBucket(6), 1);
+		assertEquals(2, table.getReplacements());
+		assertEquals(-1, table.get(firstBucket(4)));
+		assertEquals(1, table.get(firstBucket(6)));
+	}
+
+	@Test
+	public void ignoresATornEntry() throws ReflectiveOperationException {
+		TranspositionTable table=new TranspositionTable(16, n -> n);
+		long key=firstBucket(1);
+		table.put(key, 7);
+
+		// Another thread's value lands in the slot but its check word does
+		// 	not, as when two stores to the same slot race.
+		Field field=TranspositionTable.class.getDeclaredField("values");
+		field.setAccessible(true);
+		int[] values=(int[])field.get(table);
+		for (int i=0; i<values.length; i++) {
+			if (values[i]==7) {
+				values[i]=9;
+			}
+		}
+
+		assertEquals(-1, table.get(key));
+	}
+
+	@Test
+	public void threadsNeverFindAnotherKeysNode() throws Exception {
+		// A small table with many keys, so that threads keep writing over
+		// 	each other's slots.
+		TranspositionTable table=new TranspositionTable(64, n -> n&0xff);
+		long[] keys=new SplittableRandom(3).longs(1000).toArray();
+		int threads=4;
+		ExecutorService pool=Executors.newFixedThreadPool(threads);
+		ArrayList<Future<Integer>> results=new ArrayList<Future<Integer>>();
+
+		try {
+			for (int t=0; t<threads; t++) {
+				int thread=t;
+				results.add(pool.submit(() -> {
+					SplittableRandom random=new SplittableRandom(thread);
+					int found=0;
+					for (int step=0; step<1000000; step++) {
+						int k=random.nextInt(keys.length);
+						// Each thread stores its own value for a key, so a torn
+						// 	slot holds a value meant for another key.
+						if (random.nextBoolean()) {
+							table.put(keys[k], k*threads+thread);
+						} else {
+							int value=table.get(keys[k]);
+							if (value>=0) {
+								assertEquals(k, value/threads, "the node for key "+k);
+								found++;
+							}
+						}
+					}
+					return found;
+				}));
+			}
+
+			for (Future<Integer> result : results) {
+				assertTrue(result.get()>0);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks on small positions, solved exactly, that every connection,
+ * 	winning move and must-play region H-search reports is real.
+ *
+ * @author agent
+ */
+public class VirtualConnectionsTest {
+	private static final int SIZE=5;
+
+	@Test
+	public void everythingFoundIsSound() {
+		SplittableRandom random=new SplittableRandom(20);
+		Solver solver=new Solver();
+		VirtualConnections connections=new VirtualConnections(SIZE);
+		int[] region=new int[SIZE*SIZE];
+		boolean[] inRegion=new boolean[SIZE*SIZE];
+		int won=0;
+		int winningMoves=0;
+		int mustPlays=0;
+
+		for (int test=0; test<150; test++) {
+			Position board=new Position(SIZE);
+			int stones=14+random.nextInt(4);
+			for (int i=0; i<stones; i++) {
+				board.play(board.getEmpty(random.nextInt(board.getEmptyCount())),
+					random.nextBoolean() ? Constants.WHITE : Constants.BLACK);
+			}
+
+			for (int colour : new int[] {Constants.WHITE, Constants.BLACK}) {
+				int opponent=colour==Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+				connections.compute(board, colour);
+
+				if (connections.isWon()) {
+					won++;
+					assertFalse(solver.wins(board, opponent));
+
+					// The player need not answer moves outside the carrier.
+					int n=connections.getCarrier(region);
+					mark(inRegion, region, n);
+					for (int cell=0; cell<board.getCellCount(); cell++) {
+						if (board.isEmpty(cell) && !inRegion[cell]) {
+							board.play(cell, opponent);
+							assertFalse(solver.wins(board, opponent));
+							board.undo(cell);
+						}
+					}
+					continue;
+				}
+
+				int move=connections.getWinningMove();
+				if (move>=0) {
+					winningMoves++;
+					assertTrue(board.isEmpty(move));
+					board.play(move, colour);
+					assertFalse(solver.wins(board, opponent));
+					board.undo(move);
+				}
+
+				int n=connections.getMustPlay(region);
+				if (n==0) {
+					assertFalse(solver.wins(board, opponent));
+				} else if (n>0) {
+					mustPlays++;
+					mark(inRegion, region, n);
+					for (int cell=0; cell<board.getCellCount(); cell++) {
+						if (board.isEmpty(cell) && !inRegion[cell]) {
+							board.play(cell, opponent);
+							assertTrue(solver.wins(board, colour));
+							board.undo(cell);
+						}
+					}
+				}
+			}
+		}
+
+		// Make sure the positions gave H-search something to find.
+		assertTrue(won>20);
+		assertTrue(winningMoves>20);
+		assertTrue(mustPlays>20);
+	}
+
+	private static void mark(boolean[] inRegion, int[] region, int n) {
+		Arrays.fill(inRegion, false);
+		for (int i=0; i<n; i++) {
+			inRegion[region[i]]=true;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/* Copyright 2026 agent.
+ * BSD License.
+ */
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Gives the benchmarks in the hexbench package access to the game.
+ *
+ * The corpus is made by playing random moves from a fixed seed until a
+ * 	share of the board is filled, skipping any game that is already won,
+ * 	so every run measures the same positions.
+ *
+ * Searches all start from an empty tree, so that each one does the same
+ * 	work instead of carrying on from the tree the last one left behind.
+ *
+ * @author agent
+ */
+public class BenchHooks implements hexbench.Hooks {
+	private Position board;
+	private int toMove;
+	private Location last;
+	private Playout playout;
+	private InferiorCells inferior;
+	private int[] moves;
+	private int[] ownCosts;
+	private int[] oppCosts;
+	private long[] order;
+	private MCAI ai;
+	private int threads;
+	private boolean shared;
+
+	@Override
+	public void setUp(int size, String phase) {
+		double filled;
+		if (phase.equals("opening")) {
+			filled=0.1;
+		} else if (phase.equals("midgame")) {
+			filled=0.4;
+		} else if (phase.equals("endgame")) {
+			filled=0.7;
+		} else {
+			throw new IllegalArgumentException("unknown phase: "+phase);
+		}
+
+		SplittableRandom random=new SplittableRandom(size);
+		int stones=(int)(size*size*filled);
+
+		do {
+			board=new Position(size);
+			Connectivity links=new Connectivity(size);
+			toMove=Constants.WHITE;
+			last=new Location(size/2, size/2);
+
+			for (int i=0; i<stones; i++) {
+				int cell=board.getEmpty(random.nextInt(board.getEmptyCount()));
+				board.play(cell, toMove);
+				links.place(cell, toMove);
+				last=new Location(board.x(cell), board.y(cell));
+				toMove=toMove==Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+			}
+
+			if (links.getWinner()==Constants.EMPTY) {
+				break;
+			}
+		} while (true);
+
+		playout=new Playout(size);
+		inferior=new InferiorCells(size);
+		moves=new int[size*size];
+		ownCosts=new int[size*size];
+		oppCosts=new int[size*size];
+		order=new long[size*size];
+		ai=null;
+	}
+
+	@Override
+	public double calcVal() {
+		return mcai(1, true).calcVal(board);
+	}
+
+	@Override
+	public int playout() {
+		return playout.play(board, toMove, 1);
+	}
+
+	@Override
+	public Object boardCopy() {
+		return Board.BoardCopy(board);
+	}
+
+	/**
+	 * Orders the moves the way the search does when it expands a node:
+	 * 	dead and captured cells are left out, and the rest are sorted by the
+	 * 	cost of the shortest connections through them for either player.
+	 */
+	@Override
+	public int moveOrdering() {
+		int count=inferior.analyse(board, moves);
+		if (count==0) {
+			return -1;
+		}
+
+		int opponent=toMove==Constants.WHITE ? Constants.BLACK : Constants.WHITE;
+		PathEvaluator.connectionCosts(board, toMove, ownCosts);
+		PathEvaluator.connectionCosts(board, opponent, oppCosts);
+		for (int i=0; i<count; i++) {
+			int cell=moves[i];
+			order[i]=((long)(ownCosts[cell]+oppCosts[cell])<<32)|cell;
+		}
+		Arrays.sort(order, 0, count);
+
+		return (int)order[0];
+	}
+
+	@Override
+	public long search(int millis, int threads, String mode) {
+		boolean shared;
+		if (mode.equals("shared")) {
+			shared=true;
+		} else if (mode.equals("root")) {
+			shared=false;
+		} else {
+			throw new IllegalArgumentException("unknown mode: "+mode);
+		}
+
+		MCAI searcher=mcai(threads, shared);
+		searcher.setTimeLimit(millis);
+		searcher.forgetTrees();
+		searcher.getPlayLocation(board, last);
+		return searcher.getLastPlayouts();
+	}
+
+	private MCAI mcai(int threads, boolean shared) {
+		if (ai==null || this.threads!=threads || this.shared!=shared) {
+			ai=new MCAI(toMove, threads, shared);
+			this.threads=threads;
+			this.shared=shared;
+		}
+
+		return ai;
+	}
+}
@@ -0,0 +1,63 @@
+package hexbench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times the hot paths of the search on the fixed corpus: evaluation, a
+ * 	single random playout, copying a board and ordering its moves.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class EvaluationBenchmark {
+	@Param({"7", "11", "13"})
+	public int size;
+
+	@Param({"opening", "midgame", "endgame"})
+	public String phase;
+
+	private Hooks hooks;
+
+	@Setup
+	public void setUp() {
+		hooks=Hooks.load();
+		hooks.setUp(size, phase);
+	}
+
+	@Benchmark
+	public double calcVal() {
+		return hooks.calcVal();
+	}
+
+	@Benchmark
+	public int playout() {
+		return hooks.playout();
+	}
+
+	@Benchmark
+	public Object boardCopy() {
+		return hooks.boardCopy();
+	}
+
+	@Benchmark
+	public int moveOrdering() {
+		return hooks.moveOrdering();
+	}
+}
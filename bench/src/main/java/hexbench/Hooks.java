@@ -0,0 +1,75 @@
+package hexbench;
+
+/**
+ * The operations the benchmarks measure. The game classes live in the
+ * 	default package, which code in a named package cannot refer to, and
+ * 	JMH will not generate benchmarks in the default package. So the
+ * 	benchmarks reach the game through this interface, implemented by
+ * 	BenchHooks in the default package.
+ *
+ * @author agent
+ */
+public interface Hooks {
+	/**
+	 * Loads the position to work on from the fixed corpus.
+	 *
+	 * @param size The length of a side of the board
+	 * @param phase "opening", "midgame" or "endgame"
+	 */
+	void setUp(int size, String phase);
+
+	/**
+	 * Evaluates the position with MCAI.calcVal.
+	 *
+	 * @return The evaluation
+	 */
+	double calcVal();
+
+	/**
+	 * Plays a single random game out from the position.
+	 *
+	 * @return The result, in half points
+	 */
+	int playout();
+
+	/**
+	 * Copies the position with Board.BoardCopy.
+	 *
+	 * @return The copy
+	 */
+	Object boardCopy();
+
+	/**
+	 * Orders the moves in the position as the search does when it expands
+	 * 	a node.
+	 *
+	 * @return The first move, or -1 if the position is already decided
+	 */
+	int moveOrdering();
+
+	/**
+	 * Searches the position with MCAI.getPlayLocation, from an empty tree
+	 * 	each time.
+	 *
+	 * @param millis The time limit
+	 * @param threads The number of search threads
+	 * @param mode "shared" for threads that search one tree together, or
+	 * 	"root" for a tree of their own each
+	 *
+	 * @return The number of random games the search played out
+	 */
+	long search(int millis, int threads, String mode);
+
+	/**
+	 * Creates the default-package implementation.
+	 *
+	 * @return The hooks
+	 */
+	static Hooks load() {
+		try {
+			return (Hooks)Class.forName("BenchHooks").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("BenchHooks is missing from the class path", e);
+		}
+	}
+}
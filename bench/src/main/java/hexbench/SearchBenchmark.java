@@ -0,0 +1,70 @@
+package hexbench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs whole searches at fixed time budgets and reports how many random
+ * 	games they play out per second, as the playouts counter.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class SearchBenchmark {
+	@Param({"7", "11"})
+	public int size;
+
+	@Param({"opening", "midgame"})
+	public String phase;
+
+	@Param({"100", "500"})
+	public int millis;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	@Param({"shared", "root"})
+	public String mode;
+
+	private Hooks hooks;
+
+	/**
+	 * The playouts of every search in the iteration, reported by JMH as a
+	 * 	rate next to the searches themselves.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long playouts;
+	}
+
+	@Setup
+	public void setUp() {
+		hooks=Hooks.load();
+		hooks.setUp(size, phase);
+	}
+
+	@Benchmark
+	public long search(Counters counters) {
+		long playouts=hooks.search(millis, threads, mode);
+		counters.playouts+=playouts;
+		return playouts;
+	}
+}